@@ -1,50 +1,157 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
 import java.awt.Dimension;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.io.StringReader;
+import java.io.UncheckedIOException;
 import java.lang.ProcessBuilder.Redirect;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
 import java.net.URI;
+import java.net.URLDecoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.nio.ByteBuffer;
-import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
-import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
 import javax.swing.JFileChooser;
 import javax.swing.filechooser.FileNameExtensionFilter;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
 
 public class UILaunch {
 
     // Settings
     public static final boolean USE_LEVENSHTEIN_JUDGING = false;
-    private static final int MAX_LEVENSHTEIN_DISTANCE = 2;
+    // lines outputs up before measuring them, so a missing line costs only itself
+    public static final boolean USE_DIFF_JUDGING = false;
+    public static final int MAX_LEVENSHTEIN_DISTANCE = 2;
     private static final int PROBLEM_TOTAL_SCORE = 60;
     private static final int ATTEMPT_PENALTY = 5;
+    private static final long DEFAULT_TIME_LIMIT_MS = 5_000;
+    private static final int DEFAULT_MEMORY_LIMIT_MB = 256;
+    // index the contest straight from the zip and only extract a problem's files
+    // the first time it's used, instead of unzipping everything at startup
+    public static final boolean LAZY_EXTRACTION = true;
+    // start forked runs with flags that favour startup over throughput, plus a CDS
+    // archive of the JDK classes student programs load (see ForkProfile)
+    public static final boolean FAST_START_FORKED_RUNS = true;
+    // student programs run in this many JVMs started ahead of time, each replaced
+    // after this many runs (or straight away if a run goes wrong). 0 starts a
+    // fresh JVM for every run instead.
+    public static final int WORKER_POOL_SIZE = 2;
+    public static final int WORKER_MAX_RUNS = 25;
+    // save the per-phase timings (see Timings) to a file whenever the launcher
+    // exits, not just after the stats dump command
+    public static final boolean DUMP_TIMINGS_AT_EXIT = false;
+
+    public enum Verdict {
+        ACCEPTED("Accepted"),
+        WRONG_ANSWER("Wrong Answer"),
+        COMPILE_ERROR("Compile Error"),
+        RUNTIME_ERROR("Runtime Error"),
+        TIME_LIMIT_EXCEEDED("Time Limit Exceeded"),
+        MEMORY_LIMIT_EXCEEDED("Memory Limit Exceeded"),
+        NOT_ATTEMPTED("Not Attempted");
+
+        private final String canonicalName;
+
+        Verdict(String name) {
+            this.canonicalName = name;
+        }
+
+        @Override
+        public String toString() {
+            return canonicalName;
+        }
+    }
 
     // things inherent to the OS
     public static final boolean IsWindows = System.getProperty("os.name")
@@ -97,6 +204,11 @@ public class UILaunch {
         CompetitionDirRoot,
         "student-runtime"
     ).toString();
+    // unlike CompetitionDirRoot, this is kept between launches
+    public static final String CacheDir = Path.of(
+        AppDataDir,
+        "csuil-cache"
+    ).toString();
     // only need to be determined once, but can't do it when the program starts
     public static String JudgeFolderPath;
     public static String CompetitionDir; // depends on the contest directory
@@ -108,6 +220,7 @@ public class UILaunch {
     ).toString();
 
     // currently using UploadThing as file host due to UT Box being difficult to download from
+    // UploadThing also serves every file from its older utfs.io domain, so that's the mirror
     public static class CompetitionRecord {
 
         public String dataFilesURL;
@@ -134,6 +247,13 @@ public class UILaunch {
         }
 
         public ContestLevel contest;
+        // hex SHA-256 of the data files zip. Downloads and reuses that don't match
+        // it are thrown away. None of the hosts publish one, so without it the
+        // hash of the last complete download is pinned instead (see pinSha256),
+        // which only warns when it changes: the host may have re-uploaded the file.
+        public String sha256;
+        // other hosts serving the same data files zip as dataFilesURL
+        public List<String> dataFilesMirrors = new ArrayList<>();
 
         public static CompetitionRecord makeRecord(
             String dataFilesURL,
@@ -141,6 +261,24 @@ public class UILaunch {
             int competitionYear,
             String competitionID,
             ContestLevel contest
+        ) {
+            return makeRecord(
+                dataFilesURL,
+                studentPacketURL,
+                competitionYear,
+                competitionID,
+                contest,
+                null
+            );
+        }
+
+        public static CompetitionRecord makeRecord(
+            String dataFilesURL,
+            String studentPacketURL,
+            int competitionYear,
+            String competitionID,
+            ContestLevel contest,
+            String sha256
         ) {
             CompetitionRecord record = new CompetitionRecord();
             record.dataFilesURL = dataFilesURL;
@@ -148,13 +286,75 @@ public class UILaunch {
             record.competitionYear = competitionYear;
             record.competitionID = competitionID;
             record.contest = contest;
+            record.sha256 = sha256;
             return record;
         }
 
+        public CompetitionRecord withMirrors(String... urls) {
+            dataFilesMirrors.addAll(List.of(urls));
+            return this;
+        }
+
+        public List<String> getDataFilesURLs() {
+            List<String> urls = new ArrayList<>();
+            urls.add(dataFilesURL);
+            urls.addAll(dataFilesMirrors);
+            return urls;
+        }
+
         public String getCanonicalName() {
             return String.format("%d %s", competitionYear, contest);
         }
 
+        // competitionID -> SHA-256 of the last download, kept between launches.
+        // Deleting the file (or a line of it) forgets the pins.
+        private static final Path pinnedHashes = Path.of(CacheDir, "contest-sha256");
+
+        // what an earlier download pinned, or null if nothing was
+        public String pinnedSha256() {
+            try {
+                for (String line : Files.readAllLines(pinnedHashes)) {
+                    String[] parts = line.split(" ");
+                    if (parts.length == 2 && parts[0].equals(competitionID)) {
+                        return parts[1];
+                    }
+                }
+            } catch (IOException e) {
+                // nothing pinned yet
+            }
+            return null;
+        }
+
+        // Remembers the hash of a complete copy of the zip. A different hash than
+        // the one pinned before is only worth a warning, since there's no telling
+        // a re-upload from a bad copy without a real hash to compare with.
+        public void pinSha256(String actual) {
+            if (sha256 != null) return; // checked against the real one already
+            String pinned = pinnedSha256();
+            if (actual.equalsIgnoreCase(nullish(pinned, ""))) return;
+            if (pinned != null) {
+                System.out.printf(
+                    "Warning: the data files for %s have changed since they were first downloaded (SHA-256 %s, was %s). The host may have re-uploaded them.\n",
+                    getCanonicalName(),
+                    actual,
+                    pinned
+                );
+            }
+            try {
+                IOUtils.createDirIfAbsent(pinnedHashes.getParent());
+                List<String> lines = new ArrayList<>();
+                if (Files.exists(pinnedHashes)) {
+                    for (String line : Files.readAllLines(pinnedHashes)) {
+                        if (!line.startsWith(competitionID + " ")) lines.add(line);
+                    }
+                }
+                lines.add(competitionID + " " + actual);
+                Files.write(pinnedHashes, lines);
+            } catch (IOException e) {
+                // just won't be compared next time
+            }
+        }
+
         @Override
         public String toString() {
             return competitionID;
@@ -183,7 +383,7 @@ public class UILaunch {
                     2026,
                     "2026inva",
                     CompetitionRecord.ContestLevel.INVA
-                ),
+                ).withMirrors("https://utfs.io/f/rp8xqAZwHWGMsQfev1SuUYmLZkPKCBW2jgO97yTxX3z8fG51"),
                 "2025state",
                 CompetitionRecord.makeRecord(
                     "https://jxjozsvaxe.ufs.sh/f/rp8xqAZwHWGMgwpP5q7qQS3VsjYulG0hf5KBy71PCFkMpXOz",
@@ -191,7 +391,7 @@ public class UILaunch {
                     2025,
                     "2025state",
                     CompetitionRecord.ContestLevel.STATE
-                ),
+                ).withMirrors("https://utfs.io/f/rp8xqAZwHWGMgwpP5q7qQS3VsjYulG0hf5KBy71PCFkMpXOz"),
                 "2025district",
                 CompetitionRecord.makeRecord(
                     "https://jxjozsvaxe.ufs.sh/f/rp8xqAZwHWGMpHR0juXhkE458vxVsmANXzC6oU7jiaP1Y2yq",
@@ -199,7 +399,7 @@ public class UILaunch {
                     2025,
                     "2025district",
                     CompetitionRecord.ContestLevel.DISTRICT
-                ),
+                ).withMirrors("https://utfs.io/f/rp8xqAZwHWGMpHR0juXhkE458vxVsmANXzC6oU7jiaP1Y2yq"),
                 "2025invb",
                 CompetitionRecord.makeRecord(
                     "https://jxjozsvaxe.ufs.sh/f/rp8xqAZwHWGMWPQSg8taujbMxJ3Bnr7XY0vSelTwE4A25gqy",
@@ -207,7 +407,7 @@ public class UILaunch {
                     2025,
                     "2025invb",
                     CompetitionRecord.ContestLevel.INVB
-                ),
+                ).withMirrors("https://utfs.io/f/rp8xqAZwHWGMWPQSg8taujbMxJ3Bnr7XY0vSelTwE4A25gqy"),
                 "2025inva",
                 CompetitionRecord.makeRecord(
                     "https://jxjozsvaxe.ufs.sh/f/rp8xqAZwHWGMqPorvkwLlAd9j36NPomXBYGKuiSZqzkRrawt",
@@ -215,7 +415,7 @@ public class UILaunch {
                     2025,
                     "2025inva",
                     CompetitionRecord.ContestLevel.INVA
-                )
+                ).withMirrors("https://utfs.io/f/rp8xqAZwHWGMqPorvkwLlAd9j36NPomXBYGKuiSZqzkRrawt")
             )
         );
 
@@ -229,23 +429,24 @@ public class UILaunch {
             return null;
         }
 
-        System.out.printf("Downloading contest data from %s\n", directUrl);
+        System.out.printf(
+            "Downloading contest data from %s%s\n",
+            directUrl,
+            comp.dataFilesMirrors.isEmpty()
+                ? ""
+                : String.format(" (or %d mirrors)", comp.dataFilesMirrors.size())
+        );
         try {
-            URI url = new URI(directUrl);
-            ReadableByteChannel rbc = Channels.newChannel(
-                url.toURL().openStream()
-            );
             Path outputPath = Path.of(
                 DownloadDir,
                 contestName + "Programming" + ".zip"
             );
-            FileOutputStream fileOut = new FileOutputStream(
-                outputPath.toString()
-            );
-            FileChannel fc = fileOut.getChannel();
             System.out.printf("Downloading to %s\n", outputPath.toString());
-            fc.transferFrom(rbc, 0, Long.MAX_VALUE);
-            fileOut.close();
+            List<URI> mirrors = new ArrayList<>();
+            for (String url : comp.getDataFilesURLs()) mirrors.add(new URI(url));
+            comp.pinSha256(
+                Downloader.download(mirrors, outputPath, comp.sha256)
+            );
             return outputPath.toString();
         } catch (Exception e) {
             System.out.println(e);
@@ -255,6 +456,617 @@ public class UILaunch {
         return null;
     }
 
+    // Downloads a file over HTTP in parallel byte ranges, into `<target>.part` with
+    // the finished ranges noted in `<target>.part.state`, so an interrupted download
+    // picks up where it stopped next time. The file is only renamed to target once
+    // every range is in (and its SHA-256 matches, when there is one to check), so a
+    // half-downloaded zip never looks like a finished one. Servers that ignore
+    // Range requests get a plain single-stream download instead. Every range is
+    // sent with If-Range when the host gave a strong validator, and only an answer
+    // for exactly the bytes asked for is taken, so a file that changes halfway
+    // can't end up mixed into the old one.
+    // With several mirrors, every request goes to the one MirrorStats says answers
+    // fastest, and if it hasn't answered within a few times its usual latency the
+    // same request goes to the next one too. Whichever answers first is used and
+    // the other is cancelled. A body that stops arriving for STALL_MILLIS is
+    // dropped and its host marked as failed, so the retry goes to another one.
+    public static class Downloader {
+
+        private static final int CHUNK_BYTES = 4 * 1024 * 1024;
+        private static final int MAX_CONNECTIONS = 4;
+        private static final int MAX_ATTEMPTS = 3;
+        private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+        private static final HttpClient client = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+        private static final long MIN_HEDGE_MILLIS = 250;
+        private static final long STALL_MILLIS = 5_000;
+        private static final Pattern CONTENT_RANGE = Pattern.compile(
+            "bytes (\\d+)-(\\d+)/(\\d+)"
+        );
+
+        private final List<URI> mirrors;
+        private final Path target, part, state;
+        private final AtomicLong received = new AtomicLong();
+        // bodies being read -> when they last gave any bytes
+        private final Map<InputStream, Long> reading = new ConcurrentHashMap<>();
+        private volatile long total = -1;
+        private volatile long resumed = 0;
+        private String validator = "";
+
+        private Downloader(List<URI> mirrors, Path target) {
+            this.mirrors = mirrors;
+            this.target = target;
+            this.part = Path.of(target + ".part");
+            this.state = Path.of(target + ".part.state");
+        }
+
+        // returns the SHA-256 of the downloaded file
+        public static String download(URI uri, Path target, String expectedSha256)
+            throws IOException, InterruptedException {
+            return download(List.of(uri), target, expectedSha256);
+        }
+
+        public static String download(
+            List<URI> mirrors,
+            Path target,
+            String expectedSha256
+        ) throws IOException, InterruptedException {
+            try {
+                return new Downloader(mirrors, target).run(expectedSha256);
+            } finally {
+                MirrorStats.save();
+            }
+        }
+
+        private String run(String expectedSha256)
+            throws IOException, InterruptedException {
+            long start = System.nanoTime();
+            Thread progress = new Thread(this::reportProgress, "download-progress");
+            progress.setDaemon(true);
+            progress.start();
+            try {
+                if (probe()) {
+                    downloadRanges();
+                } else {
+                    downloadWhole();
+                }
+            } finally {
+                progress.interrupt();
+                progress.join();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long bytes = received.get() - resumed;
+            System.out.printf(
+                "Downloaded %.1f MB in %.1f s (%.1f MB/s).\n",
+                bytes / 1e6,
+                seconds,
+                bytes / 1e6 / Math.max(seconds, 1e-9)
+            );
+
+            String actual = IOUtils.sha256(part);
+            if (expectedSha256 != null) {
+                if (!actual.equalsIgnoreCase(expectedSha256)) {
+                    Files.deleteIfExists(part);
+                    Files.deleteIfExists(state);
+                    throw new IOException(
+                        String.format(
+                            "Downloaded file has SHA-256 %s, expected %s",
+                            actual,
+                            expectedSha256
+                        )
+                    );
+                }
+            }
+            Files.move(
+                part,
+                target,
+                StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING
+            );
+            Files.deleteIfExists(state);
+            return actual;
+        }
+
+        // asks for the first byte, true if the server answers with a range
+        private boolean probe() throws IOException, InterruptedException {
+            HttpResponse<InputStream> response = send("bytes=0-0", r ->
+                r.statusCode() == 200 || r.statusCode() == 206
+            );
+            response.body().close(); // don't read a whole file just to look at it
+            if (response.statusCode() != 206) return false;
+            long[] range = contentRange(response);
+            if (range == null) return false;
+            total = range[2];
+            // a resumed download must be of the same file. Mirrors each have their
+            // own ETags, so with several of them only the size (and the SHA-256,
+            // if there is one) can say that.
+            validator = mirrors.size() > 1
+                ? ""
+                : response
+                    .headers()
+                    .firstValue("ETag")
+                    .or(() -> response.headers().firstValue("Last-Modified"))
+                    .orElse("");
+            return true;
+        }
+
+        // the mirror a response came from, before any redirects
+        private static URI mirrorOf(HttpResponse<?> response) {
+            while (response.previousResponse().isPresent()) {
+                response = response.previousResponse().get();
+            }
+            return response.request().uri();
+        }
+
+        // reads into buffer, and lets closeStalled know the body is still moving
+        private int read(InputStream in, byte[] buffer, int len)
+            throws IOException {
+            int n = in.read(buffer, 0, len);
+            reading.put(in, System.nanoTime());
+            return n;
+        }
+
+        // hedging only covers the wait for headers, this covers the body after them
+        private void closeStalled() {
+            long now = System.nanoTime();
+            reading.forEach((in, last) -> {
+                if (now - last > STALL_MILLIS * 1_000_000) {
+                    reading.remove(in);
+                    try {
+                        in.close(); // wakes up the read with an IOException
+                    } catch (IOException e) {}
+                }
+            });
+        }
+
+        // first byte, last byte and total size of a 206, null if it doesn't say
+        private static long[] contentRange(HttpResponse<?> response) {
+            Matcher m = CONTENT_RANGE.matcher(
+                response.headers().firstValue("Content-Range").orElse("").trim()
+            );
+            if (!m.matches()) return null;
+            try {
+                return new long[] {
+                    Long.parseLong(m.group(1)),
+                    Long.parseLong(m.group(2)),
+                    Long.parseLong(m.group(3)),
+                };
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        // what can go in If-Range: a weak ETag can't
+        private String ifRange() {
+            return validator.isEmpty() || validator.startsWith("W/")
+                ? null
+                : validator;
+        }
+
+        // Sends the request (with range, if not null) to the best mirror, hedging
+        // to the next best whenever the ones in flight take too long or fail, and
+        // returns the first response that passes ok. Losers are cancelled.
+        private HttpResponse<InputStream> send(
+            String range,
+            Predicate<HttpResponse<InputStream>> ok
+        ) throws IOException, InterruptedException {
+            List<URI> order = MirrorStats.rank(mirrors);
+            Map<CompletableFuture<HttpResponse<InputStream>>, URI> racing =
+                new LinkedHashMap<>();
+            Map<CompletableFuture<HttpResponse<InputStream>>, Long> started =
+                new HashMap<>();
+            int next = 0;
+            IOException lastError = null;
+
+            while (true) {
+                if (racing.isEmpty()) {
+                    if (next >= order.size()) {
+                        throw nullish(lastError, new IOException("No mirrors left"));
+                    }
+                    next = startRace(order, next, range, racing, started);
+                }
+                CompletableFuture<Object> any = CompletableFuture.anyOf(
+                    racing.keySet().toArray(new CompletableFuture<?>[0])
+                );
+                try {
+                    if (next < order.size()) {
+                        any.get(
+                            hedgeDelayMillis(racing.values()),
+                            TimeUnit.MILLISECONDS
+                        );
+                    } else {
+                        any.get();
+                    }
+                } catch (TimeoutException e) {
+                    next = startRace(order, next, range, racing, started);
+                    continue;
+                } catch (InterruptedException e) {
+                    racing.keySet().forEach(f -> f.cancel(true));
+                    throw e;
+                } catch (ExecutionException e) {
+                    // handled below, along with whichever else has finished
+                }
+
+                Iterator<Map.Entry<CompletableFuture<HttpResponse<InputStream>>, URI>> it =
+                    racing.entrySet().iterator();
+                while (it.hasNext()) {
+                    Map.Entry<CompletableFuture<HttpResponse<InputStream>>, URI> e =
+                        it.next();
+                    CompletableFuture<HttpResponse<InputStream>> f = e.getKey();
+                    if (!f.isDone()) continue;
+                    long millis =
+                        (System.nanoTime() - started.get(f)) / 1_000_000;
+                    it.remove();
+                    HttpResponse<InputStream> response;
+                    try {
+                        response = f.join();
+                    } catch (CompletionException | CancellationException ex) {
+                        MirrorStats.recordFailure(e.getValue(), millis);
+                        lastError = new IOException(
+                            e.getValue().getHost() + ": " + ex.getCause(),
+                            ex.getCause()
+                        );
+                        continue;
+                    }
+                    if (!ok.test(response)) {
+                        response.body().close();
+                        MirrorStats.recordFailure(e.getValue(), millis);
+                        lastError = new IOException(
+                            e.getValue().getHost() +
+                            " answered HTTP " +
+                            response.statusCode()
+                        );
+                        continue;
+                    }
+                    MirrorStats.record(e.getValue(), millis);
+                    for (var loser : racing.entrySet()) {
+                        // it was at least this slow
+                        MirrorStats.record(
+                            loser.getValue(),
+                            (System.nanoTime() - started.get(loser.getKey())) /
+                            1_000_000
+                        );
+                        loser.getKey().cancel(true);
+                        loser
+                            .getKey()
+                            .thenAccept(r -> {
+                                try {
+                                    r.body().close();
+                                } catch (IOException ignored) {}
+                            });
+                    }
+                    return response;
+                }
+            }
+        }
+
+        private int startRace(
+            List<URI> order,
+            int next,
+            String range,
+            Map<CompletableFuture<HttpResponse<InputStream>>, URI> racing,
+            Map<CompletableFuture<HttpResponse<InputStream>>, Long> started
+        ) {
+            URI mirror = order.get(next);
+            HttpRequest.Builder request = HttpRequest.newBuilder(mirror)
+                .timeout(TIMEOUT)
+                .GET();
+            if (range != null) {
+                request.header("Range", range);
+                // a host whose file changed answers 200 with all of it instead
+                if (ifRange() != null) request.header("If-Range", ifRange());
+            }
+            CompletableFuture<HttpResponse<InputStream>> f = client.sendAsync(
+                request.build(),
+                HttpResponse.BodyHandlers.ofInputStream()
+            );
+            racing.put(f, mirror);
+            started.put(f, System.nanoTime());
+            return next + 1;
+        }
+
+        private static long hedgeDelayMillis(Collection<URI> inFlight) {
+            double slowest = 0;
+            for (URI mirror : inFlight) {
+                slowest = Math.max(slowest, MirrorStats.latencyMillis(mirror));
+            }
+            return Math.max(MIN_HEDGE_MILLIS, (long) (3 * slowest));
+        }
+
+        private void downloadRanges() throws IOException, InterruptedException {
+            int chunks = (int) ((total + CHUNK_BYTES - 1) / CHUNK_BYTES);
+            Set<Integer> done = loadState();
+            for (int i : done) resumed += chunkLength(i);
+            received.set(resumed);
+            if (!done.isEmpty()) {
+                System.out.printf(
+                    "Resuming download, %d of %d chunks already done.\n",
+                    done.size(),
+                    chunks
+                );
+            }
+
+            try (
+                FileChannel out = FileChannel.open(
+                    part,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE
+                );
+                OutputStream stateOut = Files.newOutputStream(
+                    state,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND
+                )
+            ) {
+                if (total > 0 && out.size() < total) {
+                    out.write(ByteBuffer.wrap(new byte[1]), total - 1);
+                }
+                ExecutorService pool = Executors.newFixedThreadPool(
+                    Math.max(1, Math.min(MAX_CONNECTIONS, chunks - done.size()))
+                );
+                List<Future<?>> futures = new ArrayList<>();
+                for (int i = 0; i < chunks; i++) {
+                    if (done.contains(i)) continue;
+                    int chunk = i;
+                    futures.add(
+                        pool.submit(() -> {
+                            downloadChunk(out, chunk);
+                            synchronized (stateOut) {
+                                stateOut.write(
+                                    (chunk + "\n").getBytes(StandardCharsets.UTF_8)
+                                );
+                                stateOut.flush();
+                            }
+                            return null;
+                        })
+                    );
+                }
+                pool.shutdown();
+                // on a failure, let the chunks in flight finish so a resume has
+                // less to fetch, but don't start any more
+                IOException failure = null;
+                try {
+                    for (Future<?> f : futures) {
+                        try {
+                            f.get();
+                        } catch (ExecutionException e) {
+                            if (failure == null) {
+                                failure = new IOException(
+                                    "Download failed",
+                                    e.getCause()
+                                );
+                                futures.forEach(g -> g.cancel(false));
+                            }
+                        } catch (CancellationException e) {}
+                    }
+                } finally {
+                    pool.shutdownNow();
+                }
+                if (failure != null) throw failure;
+            }
+        }
+
+        private long chunkLength(int chunk) {
+            return Math.min(CHUNK_BYTES, total - (long) chunk * CHUNK_BYTES);
+        }
+
+        // the chunks a previous attempt finished, if it was for the same file
+        private Set<Integer> loadState() throws IOException {
+            Set<Integer> done = new HashSet<>();
+            String header = total + " " + validator;
+            if (Files.exists(state) && Files.exists(part)) {
+                List<String> lines = Files.readAllLines(state);
+                if (!lines.isEmpty() && lines.get(0).equals(header)) {
+                    for (String line : lines.subList(1, lines.size())) {
+                        if (!line.isBlank()) done.add(Integer.parseInt(line.trim()));
+                    }
+                    return done;
+                }
+            }
+            Files.deleteIfExists(part);
+            Files.write(state, List.of(header));
+            return done;
+        }
+
+        private void downloadChunk(FileChannel out, int chunk)
+            throws IOException, InterruptedException {
+            long from = (long) chunk * CHUNK_BYTES;
+            long length = chunkLength(chunk);
+            for (int attempt = 1; ; attempt++) {
+                long written = 0;
+                HttpResponse<InputStream> response = null;
+                try {
+                    // a mirror with a different file, or a different range of it,
+                    // doesn't count as an answer
+                    long to = from + length - 1;
+                    response = send(
+                        String.format("bytes=%d-%d", from, to),
+                        r ->
+                            r.statusCode() == 206 &&
+                            Arrays.equals(
+                                contentRange(r),
+                                new long[] { from, to, total }
+                            )
+                    );
+                    try (InputStream in = response.body()) {
+                        byte[] buffer = new byte[64 * 1024];
+                        int len;
+                        reading.put(in, System.nanoTime());
+                        while (
+                            written < length &&
+                            (len = read(
+                                    in,
+                                    buffer,
+                                    (int) Math.min(buffer.length, length - written)
+                                )) >
+                            0
+                        ) {
+                            ByteBuffer chunkBuffer = ByteBuffer.wrap(buffer, 0, len);
+                            long pos = from + written;
+                            while (chunkBuffer.hasRemaining()) {
+                                pos += out.write(chunkBuffer, pos);
+                            }
+                            written += len;
+                            received.addAndGet(len);
+                        }
+                    }
+                    if (written != length) {
+                        throw new IOException("Connection closed mid-chunk");
+                    }
+                    return;
+                } catch (IOException e) {
+                    received.addAndGet(-written);
+                    if (response != null) {
+                        // answered, then broke off or stalled: try someone else
+                        MirrorStats.recordFailure(mirrorOf(response), STALL_MILLIS);
+                    }
+                    if (attempt >= MAX_ATTEMPTS) throw e;
+                } finally {
+                    if (response != null) reading.remove(response.body());
+                }
+            }
+        }
+
+        private void downloadWhole() throws IOException, InterruptedException {
+            Files.deleteIfExists(state);
+            for (int attempt = 1; ; attempt++) {
+                long written = 0;
+                HttpResponse<InputStream> response = null;
+                try {
+                    response = send(null, r -> r.statusCode() == 200);
+                    try (
+                        InputStream in = response.body();
+                        OutputStream out = Files.newOutputStream(part)
+                    ) {
+                        total = response
+                            .headers()
+                            .firstValueAsLong("Content-Length")
+                            .orElse(-1);
+                        byte[] buffer = new byte[64 * 1024];
+                        int len;
+                        reading.put(in, System.nanoTime());
+                        while ((len = read(in, buffer, buffer.length)) > 0) {
+                            out.write(buffer, 0, len);
+                            written += len;
+                            received.addAndGet(len);
+                        }
+                    }
+                    if (total >= 0 && written != total) {
+                        throw new IOException("Connection closed mid-download");
+                    }
+                    return;
+                } catch (IOException e) {
+                    received.addAndGet(-written);
+                    if (response != null) {
+                        MirrorStats.recordFailure(mirrorOf(response), STALL_MILLIS);
+                    }
+                    if (attempt >= MAX_ATTEMPTS) throw e;
+                } finally {
+                    if (response != null) reading.remove(response.body());
+                }
+            }
+        }
+
+        private void reportProgress() {
+            long start = System.nanoTime();
+            try {
+                while (true) {
+                    Thread.sleep(1000);
+                    closeStalled();
+                    long bytes = received.get();
+                    double rate = (bytes - resumed) / 1e6 /
+                        ((System.nanoTime() - start) / 1e9);
+                    if (total > 0) {
+                        System.out.printf(
+                            "  %.1f / %.1f MB (%.0f%%), %.1f MB/s\n",
+                            bytes / 1e6,
+                            total / 1e6,
+                            100.0 * bytes / total,
+                            rate
+                        );
+                    } else {
+                        System.out.printf("  %.1f MB, %.1f MB/s\n", bytes / 1e6, rate);
+                    }
+                }
+            } catch (InterruptedException e) {
+                // finished
+            }
+        }
+    }
+
+    // How long each download host took to answer, averaged over past downloads and
+    // kept in CacheDir so later launches start on the one that was fastest.
+    public static class MirrorStats {
+
+        private static final Path file = Path.of(CacheDir, "mirror-latency");
+        // what a host we know nothing about is assumed to take
+        private static final double UNKNOWN_MILLIS = 300;
+        private static final double FAILURE_PENALTY_MILLIS = 5_000;
+        private static final double WEIGHT = 0.3;
+        private static final Map<String, Double> latency = load();
+
+        private static Map<String, Double> load() {
+            Map<String, Double> map = new ConcurrentHashMap<>();
+            try {
+                for (String line : Files.readAllLines(file)) {
+                    String[] parts = line.split(" ");
+                    if (parts.length == 2) {
+                        map.put(parts[0], Double.parseDouble(parts[1]));
+                    }
+                }
+            } catch (IOException | NumberFormatException e) {
+                // nothing remembered yet
+            }
+            return map;
+        }
+
+        private static String host(URI mirror) {
+            return mirror.getAuthority();
+        }
+
+        public static double latencyMillis(URI mirror) {
+            return latency.getOrDefault(host(mirror), UNKNOWN_MILLIS);
+        }
+
+        public static void record(URI mirror, long millis) {
+            latency.merge(host(mirror), (double) millis, (old, now) ->
+                old + WEIGHT * (now - old)
+            );
+        }
+
+        public static void recordFailure(URI mirror, long millis) {
+            record(mirror, (long) Math.max(millis, FAILURE_PENALTY_MILLIS));
+        }
+
+        public static void forget(URI mirror) {
+            latency.remove(host(mirror));
+        }
+
+        // fastest first
+        public static List<URI> rank(List<URI> mirrors) {
+            List<URI> ranked = new ArrayList<>(mirrors);
+            ranked.sort(Comparator.comparingDouble(MirrorStats::latencyMillis));
+            return ranked;
+        }
+
+        public static void save() {
+            List<String> lines = new ArrayList<>();
+            latency.forEach((host, millis) ->
+                lines.add(String.format("%s %.1f", host, millis))
+            );
+            try {
+                IOUtils.createDirIfAbsent(file.getParent());
+                Files.write(file, lines);
+            } catch (IOException e) {
+                // only a hint for next time
+            }
+        }
+    }
+
     // I miss js' nullish coalescense
     public static <T> T nullish(T value, T fallback) {
         return value != null ? value : fallback;
@@ -264,6 +1076,14 @@ public class UILaunch {
         return value != null ? value : fallbackFn.get();
     }
 
+    // a duration in whichever unit keeps it readable
+    public static String formatNanos(long nanos) {
+        if (nanos < 1_000) return nanos + " ns";
+        if (nanos < 1_000_000) return String.format("%.1f us", nanos / 1e3);
+        if (nanos < 1_000_000_000) return String.format("%.1f ms", nanos / 1e6);
+        return String.format("%.2f s", nanos / 1e9);
+    }
+
     public static boolean notNull(Object... values) {
         return Arrays.stream(values).allMatch(v -> v != null);
     }
@@ -305,6 +1125,18 @@ public class UILaunch {
             return filePaths;
         }
 
+        // same as above for any file system, including a mounted zip
+        public static Set<Path> listFiles(Path dir, boolean ignoreDir) {
+            try (Stream<Path> stream = Files.list(dir)) {
+                return stream
+                    .filter(f -> !ignoreDir || !Files.isDirectory(f))
+                    .collect(Collectors.toSet());
+            } catch (Exception e) {
+                System.out.println("Failed to read files from: \n\t" + dir);
+                return new HashSet<>();
+            }
+        }
+
         public static boolean containsWords(String search, String[] words) {
             return Arrays.stream(words).reduce(
                 true,
@@ -380,6 +1212,20 @@ public class UILaunch {
             return null;
         }
 
+        public static Path checkDir(
+            Path dir,
+            boolean ignoreDir,
+            String... terms
+        ) {
+            for (Path f : listFiles(dir, ignoreDir)) {
+                if (containsWords(f.toString(), terms)) {
+                    return f;
+                }
+            }
+
+            return null;
+        }
+
         public static boolean createDirIfAbsent(Path dir) {
             if (Files.notExists(dir)) {
                 try {
@@ -393,7 +1239,8 @@ public class UILaunch {
             return true; // if already exists, not really a problem, right?
         }
 
-        public static void unzipFallback(Path zipFilePath, Path destPath) {
+        public static void unzipFallback(Path zipFilePath, Path destPath)
+            throws IOException {
             try {
                 ProcessBuilder pb;
                 if (IsWindows) {
@@ -413,65 +1260,44 @@ public class UILaunch {
                     );
                 }
                 pb = pb.inheritIO();
-                pb.start().waitFor();
-            } catch (Exception e) {
-                exitProgram("Failed to unzip using terminal.");
+                if (pb.start().waitFor() != 0) {
+                    throw new IOException("Failed to unzip using terminal.");
+                }
+            } catch (InterruptedException e) {
+                throw new IOException("Failed to unzip using terminal.", e);
             }
         }
 
-        public static void unzip(String zipFilePath, String destDir) {
+        // ZipFile reads the central directory up front, so every entry can be
+        // inflated on its own thread instead of walking the archive in order
+        public static void unzip(String zipFilePath, String destDir)
+            throws IOException {
+            unzip(zipFilePath, destDir, name -> true);
+        }
+
+        // only the entries include accepts, unless it comes to unzipFallback
+        public static void unzip(
+            String zipFilePath,
+            String destDir,
+            Predicate<String> include
+        ) throws IOException {
             Path zipPath = Path.of(zipFilePath);
             Path destPath = Path.of(destDir);
-            if (!createDirIfAbsent(zipPath)) {
-                exitProgram(
-                    -1,
-                    "Unable to create directories at \n\t%s\nMaybe need files permissions?",
-                    destDir
+            if (!createDirIfAbsent(destPath)) {
+                throw new IOException(
+                    String.format(
+                        "Unable to create directories at \n\t%s\nMaybe need files permissions?",
+                        destDir
+                    )
                 );
             }
 
-            String lastKnownEntryName = null;
-            try (
-                ZipInputStream zis = new ZipInputStream(
-                    Files.newInputStream(zipPath)
-                )
-            ) {
-                ZipEntry entry;
-                while ((entry = zis.getNextEntry()) != null) {
-                    lastKnownEntryName = entry.getName();
-                    Path filePath = destPath.resolve(entry.getName());
-
-                    if (
-                        !filePath.normalize().startsWith(destPath.normalize())
-                    ) {
-                        zis.closeEntry();
-                        exitProgram(
-                            -1,
-                            "Bad zip entry. Unable to correctly extract files."
-                        );
-                    }
-
-                    if (entry.isDirectory()) {
-                        Files.createDirectories(filePath);
-                    } else {
-                        entry.getName().split("\\.");
-                        Files.createDirectories(filePath.getParent());
-                        try (
-                            OutputStream os = Files.newOutputStream(filePath)
-                        ) {
-                            byte[] buffer = new byte[8192];
-                            int len = 0;
-                            while ((len = zis.read(buffer)) > 0) {
-                                os.write(buffer, 0, len);
-                            }
-                        }
-                    }
-                    zis.closeEntry();
-                }
+            try {
+                System.out.println(extract(zipPath, destPath, include));
+            } catch (ZipException e) {
+                throw e; // the system unzip won't make a bad entry any safer
             } catch (Exception e) {
-                System.out.printf("Errored on entry: %s\n", lastKnownEntryName);
                 System.out.println(e);
-
                 System.out.println(
                     "Attempted to use system commands to unzip file..."
                 );
@@ -481,27 +1307,161 @@ public class UILaunch {
             System.out.println(
                 "Unzipped file successfully. Searching for data."
             );
+            findCompetitionDir(destDir);
+            System.out.printf("Unzipped to %s successfully.\n", destDir);
+        }
 
-            // unzipped competition data successfully, but the actual data is inside a
-            // different folder, so now we can set the CompetitionDir
+        // unzipped competition data successfully, but the actual data is inside a
+        // different folder, so now we can set the CompetitionDir
+        public static void findCompetitionDir(String destDir)
+            throws IOException {
             Set<String> F = listFiles(destDir, false);
-            if (F.size() >= 1) {
-                CompetitionDir = F.stream()
-                    .filter(f -> !f.contains("MACOS"))
-                    .findFirst()
-                    .orElse("");
-                System.out.println("Found competition dir: " + CompetitionDir);
-                if (CompetitionDir.equals("")) {
-                    cleanUpTemp();
-                    exitProgram(
-                        "Could not find competition root directory within unzipped data."
+            CompetitionDir = F.stream()
+                .filter(f -> !f.contains("MACOS"))
+                .findFirst()
+                .orElse("");
+            if (CompetitionDir.equals("")) {
+                throw new IOException(
+                    "Could not find competition root directory within unzipped data."
+                );
+            }
+            System.out.println("Found competition dir: " + CompetitionDir);
+        }
+
+        private static final int UNZIP_BUFFER_SIZE = 256 * 1024;
+
+        // the judge and student data folders, everything else is extra
+        public static boolean isContestData(String entryName) {
+            return (
+                !entryName.contains("MACOS") &&
+                (entryName.contains("StudentData") ||
+                    containsWords(
+                        entryName,
+                        new String[] { "Solutions", "JudgeData", "OutFiles" }
+                    ))
+            );
+        }
+
+        // extracts the entries include accepts and says how fast that went. Also runs
+        // on background threads, so problems are thrown rather than exiting here.
+        public static String extract(
+            Path zipPath,
+            Path destPath,
+            Predicate<String> include
+        ) throws IOException, InterruptedException {
+            long start = System.nanoTime();
+            try (ZipFile zip = new ZipFile(zipPath.toFile())) {
+                List<ZipEntry> files = new ArrayList<>();
+                Set<Path> dirs = new HashSet<>();
+                for (ZipEntry entry : Collections.list(zip.entries())) {
+                    if (!include.test(entry.getName())) continue;
+                    Path filePath = destPath.resolve(entry.getName());
+                    if (
+                        !filePath.normalize().startsWith(destPath.normalize())
+                    ) {
+                        throw new ZipException(
+                            "Bad zip entry. Unable to correctly extract files."
+                        );
+                    }
+                    if (entry.isDirectory()) {
+                        dirs.add(filePath);
+                    } else {
+                        dirs.add(filePath.getParent());
+                        files.add(entry);
+                    }
+                }
+                for (Path dir : dirs) Files.createDirectories(dir);
+
+                // biggest first, so one large file doesn't start last and finish alone
+                files.sort(
+                    Comparator.comparingLong(ZipEntry::getCompressedSize).reversed()
+                );
+                int workers = Math.max(
+                    1,
+                    Math.min(
+                        Runtime.getRuntime().availableProcessors(),
+                        files.size()
+                    )
+                );
+                ExecutorService pool = Executors.newFixedThreadPool(workers);
+                ThreadLocal<byte[]> buffers = ThreadLocal.withInitial(() ->
+                    new byte[UNZIP_BUFFER_SIZE]
+                );
+                List<Future<Long>> futures = new ArrayList<>();
+                for (ZipEntry entry : files) {
+                    futures.add(
+                        pool.submit(() ->
+                            extractEntry(
+                                zip,
+                                entry,
+                                destPath.resolve(entry.getName()),
+                                buffers.get()
+                            )
+                        )
                     );
-                } else {
-                    // System.out.println(CompetitionDir);
                 }
+                pool.shutdown();
+
+                long bytes = 0;
+                try {
+                    for (int i = 0; i < futures.size(); i++) {
+                        try {
+                            bytes += futures.get(i).get();
+                        } catch (ExecutionException e) {
+                            throw new IOException(
+                                "Errored on entry: " + files.get(i).getName(),
+                                e.getCause()
+                            );
+                        }
+                    }
+                } finally {
+                    pool.shutdownNow();
+                }
+
+                long elapsed = System.nanoTime() - start;
+                return String.format(
+                    "Extracted %d files (%.1f MB) in %d ms, %.1f MB/s on %d thread%s.",
+                    files.size(),
+                    bytes / 1e6,
+                    elapsed / 1_000_000,
+                    bytes / 1e6 / Math.max(elapsed / 1e9, 1e-9),
+                    workers,
+                    workers == 1 ? "" : "s"
+                );
             }
+        }
 
-            System.out.printf("Unzipped to %s successfully.\n", destDir);
+        // ZipFile hands out independent streams, each with its own Inflater
+        private static long extractEntry(
+            ZipFile zip,
+            ZipEntry entry,
+            Path filePath,
+            byte[] buffer
+        ) throws IOException {
+            long written = 0;
+            CRC32 crc = new CRC32();
+            try (
+                InputStream in = zip.getInputStream(entry);
+                FileChannel out = FileChannel.open(
+                    filePath,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING
+                )
+            ) {
+                int len;
+                while ((len = in.readNBytes(buffer, 0, buffer.length)) > 0) {
+                    ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, len);
+                    while (chunk.hasRemaining()) out.write(chunk);
+                    crc.update(buffer, 0, len);
+                    written += len;
+                }
+            }
+            // the one check a file gets, see ContestCache
+            if (entry.getCrc() != -1 && crc.getValue() != entry.getCrc()) {
+                throw new ZipException("Corrupt zip entry: " + entry.getName());
+            }
+            return written;
         }
 
         public static boolean delete(File f) {
@@ -524,7 +1484,75 @@ public class UILaunch {
             return delete(Path.of(s));
         }
 
+        // hex SHA-256 of the given byte arrays, with a separator between each one
+        public static String sha256(byte[]... parts) {
+            try {
+                MessageDigest sha = MessageDigest.getInstance("SHA-256");
+                for (byte[] part : parts) {
+                    sha.update(part);
+                    sha.update((byte) 0);
+                }
+                return HexFormat.of().formatHex(sha.digest());
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e); // every JDK has SHA-256
+            }
+        }
+
+        // hex SHA-256 of a file's contents, read in chunks
+        public static String sha256(Path file) throws IOException {
+            try (InputStream in = Files.newInputStream(file)) {
+                MessageDigest sha = MessageDigest.getInstance("SHA-256");
+                byte[] buffer = new byte[UNZIP_BUFFER_SIZE];
+                int len;
+                while ((len = in.read(buffer)) > 0) sha.update(buffer, 0, len);
+                return HexFormat.of().formatHex(sha.digest());
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e); // every JDK has SHA-256
+            }
+        }
+
+        public static long crc32(Path file) throws IOException {
+            try (InputStream in = Files.newInputStream(file)) {
+                CRC32 crc = new CRC32();
+                byte[] buffer = new byte[UNZIP_BUFFER_SIZE];
+                int len;
+                while ((len = in.read(buffer)) > 0) crc.update(buffer, 0, len);
+                return crc.getValue();
+            }
+        }
+
+        // binary class name -> bytes for every .class file under dir
+        public static Map<String, byte[]> readClassFiles(Path dir)
+            throws IOException {
+            Map<String, byte[]> classes = new TreeMap<>();
+            try (Stream<Path> files = Files.walk(dir)) {
+                for (Path f : files.toList()) {
+                    String rel = dir.relativize(f).toString();
+                    if (!rel.endsWith(".class")) continue;
+                    classes.put(
+                        rel
+                            .substring(0, rel.length() - ".class".length())
+                            .replace(File.separatorChar, '.'),
+                        Files.readAllBytes(f)
+                    );
+                }
+            }
+            return classes;
+        }
+
+        public static long sizeOf(Path p) {
+            try (Stream<Path> files = Files.walk(p)) {
+                return files
+                    .filter(Files::isRegularFile)
+                    .mapToLong(f -> f.toFile().length())
+                    .sum();
+            } catch (IOException e) {
+                return 0;
+            }
+        }
+
         public static void cleanUpTemp() {
+            LazyContest.close();
             if (CompetitionDirRoot == null) return;
 
             if (delete(Path.of(CompetitionDirRoot))) {
@@ -552,856 +1580,5517 @@ public class UILaunch {
         }
     }
 
-    public static class Problem {
-
-        private final String name;
-        private final String judgeDataPath, correctCodePath, judgeOutPath;
-        private int numTries = 0;
-        private boolean accepted = false;
-        private String studentDataPath;
-
-        @Override
-        public String toString() {
+    // Extracted contests, kept between launches under the size and modification
+    // time of their zip, so opening the same contest again doesn't extract anything
+    // (or read the whole zip to hash it). Every file is checked
+    // against the zip's CRC-32 once, as it's written, and then goes in the contest's
+    // manifest with its size and modification time. After that a file is trusted
+    // as long as those still match and the zip still gives it that CRC-32, whether
+    // it came from a full or a lazy extraction, so another zip that happens to
+    // share the key can't pass for this one. A full extraction only counts once
+    // its manifest says complete.
+    // The least recently opened contests go once the total is over MAX_CACHE_BYTES.
+    public static class ContestCache {
+
+        private static final long MAX_CACHE_BYTES = 1024L * 1024 * 1024;
+        private static final Path root = Path.of(CacheDir, "contests");
+
+        public static String key(Path zip) throws IOException {
             return String.format(
-                "%10s [Accepted=%b, Attemps=%2d, Points Awarded=%2d]\n",
-                name,
-                accepted,
-                numTries,
-                getScore(),
-                IOUtils.getFileName(judgeDataPath),
-                IOUtils.getFileName(judgeOutPath),
-                IOUtils.getFileName(studentDataPath)
+                "%d-%d",
+                Files.size(zip),
+                Files.getLastModifiedTime(zip).toMillis()
             );
         }
 
-        public String toStringDetailed() {
+        // the contest's folder, marked as just used
+        public static Path open(String key) throws IOException {
+            Path dir = root.resolve(key);
+            Files.createDirectories(dir);
+            dir.toFile().setLastModified(System.currentTimeMillis());
+            return dir;
+        }
+
+        private static final String COMPLETE = "complete";
+        // key -> the manifest as read this launch, relative path -> stamp
+        private static final Map<String, Map<String, String>> manifests =
+            new ConcurrentHashMap<>();
+
+        private static Path manifest(String key) {
+            return root.resolve(key + ".manifest");
+        }
+
+        // "size modified crc", one line per file with its path after it. Lines get
+        // appended as files are extracted, so the last one for a path wins.
+        private static String stamp(File f, long crc) {
             return String.format(
-                "%s [Accepted=%b, Attemps=%2d, Points Awarded=%2d]\n\tJudge Data File: %s\n\tJudge Output: %s\n\tStudent Data File:%s\n",
-                name,
-                accepted,
-                numTries,
-                getScore(),
-                IOUtils.getFileName(judgeDataPath),
-                IOUtils.getFileName(judgeOutPath),
-                IOUtils.getFileName(studentDataPath)
+                "%d %d %08x",
+                f.length(),
+                f.lastModified(),
+                crc
             );
         }
 
-        public Problem(String n, String jdp, String sop, String ccp) {
-            name = n;
-            judgeDataPath = jdp;
-            judgeOutPath = sop;
-            correctCodePath = ccp;
+        private static Map<String, String> stamps(String key) {
+            return manifests.computeIfAbsent(key, k -> {
+                Map<String, String> stamps = new ConcurrentHashMap<>();
+                try {
+                    for (String line : Files.readAllLines(manifest(k))) {
+                        String[] parts = line.split(" ", 4);
+                        if (parts.length == 4) {
+                            stamps.put(
+                                parts[3],
+                                String.join(" ", parts[0], parts[1], parts[2])
+                            );
+                        } else if (line.equals(COMPLETE)) {
+                            stamps.put(COMPLETE, COMPLETE);
+                        }
+                    }
+                } catch (IOException e) {
+                    // no manifest yet
+                }
+                return stamps;
+            });
         }
 
-        public String getStudentDataPath() {
-            return studentDataPath;
+        // whether f, somewhere in open(key), was already checked against crc and
+        // hasn't changed since
+        public static boolean isVerified(String key, Path f, long crc) {
+            if (key == null) return false;
+            String relative = root.resolve(key).relativize(f).toString();
+            return stamp(f.toFile(), crc).equals(stamps(key).get(relative));
         }
 
-        public void setStudentDataPath(String sdp) {
-            studentDataPath = sdp;
+        // notes that f, somewhere in open(key), was just checked against crc
+        public static synchronized void recordVerified(
+            String key,
+            Path f,
+            long crc
+        ) {
+            if (key == null) return;
+            String relative = root.resolve(key).relativize(f).toString();
+            String stamp = stamp(f.toFile(), crc);
+            stamps(key).put(relative, stamp);
+            try {
+                Files.writeString(
+                    manifest(key),
+                    stamp + " " + relative + "\n",
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND
+                );
+            } catch (IOException e) {
+                // just means it gets checked again next time
+            }
         }
 
-        public String getName() {
-            return name;
+        // whether open(key) holds all of zipPath, going by the CRC-32s in its
+        // central directory, which ZipFile reads without inflating anything
+        public static boolean isComplete(String key, Path zipPath) {
+            Map<String, String> stamps = stamps(key);
+            if (!stamps.containsKey(COMPLETE)) return false;
+            Path dir = root.resolve(key);
+            try (ZipFile zip = new ZipFile(zipPath.toFile())) {
+                for (ZipEntry entry : Collections.list(zip.entries())) {
+                    if (entry.isDirectory()) continue;
+                    File f = dir.resolve(entry.getName()).toFile();
+                    String relative = dir.relativize(f.toPath()).toString();
+                    if (!stamp(f, entry.getCrc()).equals(stamps.get(relative))) {
+                        return false;
+                    }
+                }
+                return true;
+            } catch (IOException | RuntimeException e) {
+                return false;
+            }
         }
 
-        public int getScore() {
-            return accepted
-                ? PROBLEM_TOTAL_SCORE - (numTries - 1) * ATTEMPT_PENALTY
-                : 0;
+        // call after a full extraction of zipPath into open(key), which checked every
+        // file's CRC-32 on the way out
+        public static void markComplete(String key, Path zipPath) {
+            Path dir = root.resolve(key);
+            Path tmp = root.resolve(key + ".manifest.tmp");
+            Map<String, String> stamps = new ConcurrentHashMap<>();
+            try (ZipFile zip = new ZipFile(zipPath.toFile())) {
+                List<String> lines = new ArrayList<>();
+                for (ZipEntry entry : Collections.list(zip.entries())) {
+                    if (entry.isDirectory()) continue;
+                    File f = dir.resolve(entry.getName()).toFile();
+                    if (!f.isFile()) continue;
+                    String relative = dir.relativize(f.toPath()).toString();
+                    String stamp = stamp(f, entry.getCrc());
+                    stamps.put(relative, stamp);
+                    lines.add(stamp + " " + relative);
+                }
+                lines.add(COMPLETE);
+                stamps.put(COMPLETE, COMPLETE);
+                synchronized (ContestCache.class) {
+                    Files.write(tmp, lines);
+                    Files.move(
+                        tmp,
+                        manifest(key),
+                        StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING
+                    );
+                    manifests.put(key, stamps);
+                }
+            } catch (IOException e) {
+                // just means it gets extracted again next time
+            }
         }
 
-        public boolean isAccepted() {
-            return accepted;
+        // drops the least recently opened contests, except keep, until under the cap
+        public static void evict(String keep) {
+            List<Path> dirs;
+            try (Stream<Path> list = Files.list(root)) {
+                dirs = list
+                    .filter(Files::isDirectory)
+                    .sorted(
+                        Comparator.comparingLong((Path d) ->
+                            d.toFile().lastModified()
+                        ).reversed()
+                    )
+                    .toList();
+            } catch (IOException e) {
+                return;
+            }
+            long total = 0;
+            for (Path d : dirs) {
+                String key = d.getFileName().toString();
+                total += IOUtils.sizeOf(d);
+                if (total > MAX_CACHE_BYTES && !key.equals(keep)) {
+                    IOUtils.delete(d);
+                    IOUtils.delete(manifest(key));
+                    manifests.remove(key);
+                }
+            }
         }
 
-        public int getNumberTries() {
-            return numTries;
+        public static String describe() {
+            try (Stream<Path> list = Files.list(root)) {
+                List<Path> dirs = list.filter(Files::isDirectory).toList();
+                return String.format(
+                    "Contest cache: %d contests (%.1f MB of %d MB)",
+                    dirs.size(),
+                    dirs.stream().mapToLong(IOUtils::sizeOf).sum() / 1e6,
+                    MAX_CACHE_BYTES / (1024 * 1024)
+                );
+            } catch (IOException e) {
+                return "Contest cache: empty";
+            }
+        }
+    }
+
+    // Reads the contest straight out of the zip through a zip FileSystem. Problems
+    // get the paths their files would have if the zip were extracted, and each
+    // file is only copied there the first time something asks for it.
+    public static class LazyContest {
+
+        private static FileSystem zip;
+        private static Path extractRoot;
+        private static String cacheKey;
+        // local path -> entry in the zip, for files that haven't been copied (or
+        // checked, if an earlier launch already copied them) yet
+        private static final Map<String, Path> pending =
+            new ConcurrentHashMap<>();
+        private static final AtomicInteger extracted = new AtomicInteger();
+        private static final AtomicInteger reused = new AtomicInteger();
+
+        // the contest folder inside the zip, or null if there isn't one
+        public static synchronized Path open(Path zipPath) throws IOException {
+            close();
+            zip = FileSystems.newFileSystem(zipPath);
+            Path top = zip.getRootDirectories().iterator().next();
+            return IOUtils.listFiles(top, false)
+                .stream()
+                .filter(Files::isDirectory)
+                .filter(f -> !f.toString().contains("MACOS"))
+                .findFirst()
+                .orElse(null);
         }
 
-        private String centerString(String s, int width) {
-            return String.format(
-                "%s%s%s",
-                " ".repeat((width - s.length()) / 2),
-                s,
-                " ".repeat((width - s.length() + 1) / 2)
-            );
+        // has to be called before localPath. cacheKey is the ContestCache key dir
+        // belongs to, or null if it's only a temporary folder.
+        public static void extractTo(Path dir, String cacheKey) {
+            extractRoot = dir;
+            LazyContest.cacheKey = cacheKey;
         }
 
-        public void run(String studentCodePath) {
-            IOUtils.createDirIfAbsent(Path.of(CompetitionExecutionDir));
-            System.out.printf(
-                "========== Compiling %s ==========\n",
-                centerString(getName(), 10)
-            );
-            int status = compileStudentCode(studentCodePath, false);
-            if (status != 0) {
-                System.out.println("Failed to compile");
-                return;
+        // where f ends up on disk, null for null
+        public static String localPath(Path f) {
+            if (f == null) return null;
+            if (f.getFileSystem() == FileSystems.getDefault()) {
+                return f.toString();
             }
-            System.out.printf(
-                "========== Running   %s ==========\n",
-                centerString(getName(), 10)
-            );
-            executeStudentCode(false);
-            cleanUpExecution();
+            Path local = extractRoot;
+            for (Path part : f) local = local.resolve(part.toString());
+            if (!local.normalize().startsWith(extractRoot.normalize())) {
+                // called from inside ReadFrom's lambdas, openCompetition unwraps it
+                throw new UncheckedIOException(
+                    new ZipException(
+                        "Bad zip entry. Unable to correctly extract files."
+                    )
+                );
+            }
+            if (Files.isRegularFile(f)) pending.put(local.toString(), f);
+            return local.toString();
         }
 
-        // the sins of the father pass down to the son
-        // (IOUtils.readLines shouldn't have ever existed)
-        public boolean check(String studentCodePath) {
-            // run student code
-            IOUtils.createDirIfAbsent(Path.of(CompetitionExecutionDir));
-            System.out.printf(
-                "========== Compiling %s ==========\n",
-                centerString(getName(), 10)
-            );
-            int status = compileStudentCode(studentCodePath, false);
-            if (status != 0) {
-                System.out.println("Failed to compile.");
+        // copies the given files out of the zip unless that already happened, and
+        // says what went wrong rather than printing it, since this also runs in
+        // the background while the prompt is up. Failed files stay pending.
+        public static List<String> materialize(String... paths) {
+            List<String> problems = new ArrayList<>();
+            for (String path : paths) {
+                Path entry = path != null ? pending.get(path) : null;
+                if (entry == null) continue;
+                synchronized (entry) {
+                    if (!pending.containsKey(path)) continue;
+                    try {
+                        Path local = Path.of(path);
+                        long crc = (long) Files.getAttribute(entry, "zip:crc");
+                        if (ContestCache.isVerified(cacheKey, local, crc)) {
+                            pending.remove(path);
+                            reused.incrementAndGet();
+                            continue;
+                        }
+                        Files.createDirectories(local.getParent());
+                        Path tmp = Files.createTempFile(
+                            local.getParent(),
+                            local.getFileName().toString(),
+                            ".part"
+                        );
+                        Files.copy(entry, tmp, StandardCopyOption.REPLACE_EXISTING);
+                        if (IOUtils.crc32(tmp) != crc) {
+                            Files.delete(tmp);
+                            throw new ZipException("Corrupt zip entry: " + entry);
+                        }
+                        Files.move(
+                            tmp,
+                            local,
+                            StandardCopyOption.ATOMIC_MOVE,
+                            StandardCopyOption.REPLACE_EXISTING
+                        );
+                        ContestCache.recordVerified(cacheKey, local, crc);
+                        pending.remove(path);
+                        extracted.incrementAndGet();
+                    } catch (IOException e) {
+                        problems.add(
+                            String.format("Unable to extract %s: %s", entry, e)
+                        );
+                    }
+                }
             }
+            return problems;
+        }
 
-            // isJudge actually just makes it write to a file, it does no judgeing at all.
-            // naming it such seemed like a good idea about three hours ago
-            File studentOutput = executeStudentCode(true);
-            List<String> studentOutputLines = IOUtils.readLines(studentOutput);
-            cleanUpExecution();
+        public static boolean isOpen() {
+            return zip != null;
+        }
 
-            // run correct code
-            IOUtils.createDirIfAbsent(Path.of(CompetitionExecutionDir));
-            compileStudentCode(correctCodePath, true);
-            File correctOutput = executeStudentCode(true);
-            List<String> correctOutputLines = IOUtils.readLines(correctOutput);
+        // lets go of the zip, whatever is still pending stays in it
+        public static synchronized void close() {
+            if (zip == null) return;
             try {
-                Files.deleteIfExists(studentOutput.toPath());
-                Files.deleteIfExists(correctOutput.toPath());
+                zip.close();
             } catch (IOException e) {
-                // yeet
+                // nothing left to do with it either way
             }
-            cleanUpExecution();
+            zip = null;
+        }
 
-            return isCorrectOutput(correctOutputLines, studentOutputLines);
+        public static String describe() {
+            return String.format(
+                "Contest files: %d extracted, %d reused, %d still in the zip",
+                extracted.get(),
+                reused.get(),
+                pending.size()
+            );
         }
+    }
 
-        public int compileStudentCode(String studentCodePath, boolean isJudge) {
-            try {
-                String fileName = Path.of(studentCodePath)
-                    .getFileName()
-                    .toString();
-                Path destination = Path.of(CompetitionExecutionDir, fileName);
-                Files.deleteIfExists(destination);
-                Files.copy(Path.of(studentCodePath), destination);
-                ProcessBuilder pb = new ProcessBuilder("javac", fileName)
-                    .directory(new File(CompetitionExecutionDir))
-                    .inheritIO();
-                if (!isJudge) {
-                    pb.redirectOutput(Redirect.INHERIT);
-                }
-                return pb.start().waitFor();
-            } catch (IOException | InterruptedException e) {
-                return -1;
+    // compiling through a forked `javac` costs a whole JVM start plus a cold compiler
+    // on every run/check/judge, so we keep one compiler warm inside the launcher and
+    // only fall back to `javac` on installs that ship without the jdk.compiler module
+    public static class InProcessCompiler {
+
+        public static class CompileDiagnostic {
+
+            public final Diagnostic.Kind kind;
+            public final String fileName;
+            public final long line, column;
+            public final String message;
+            public final String sourceLine;
+
+            CompileDiagnostic(
+                Diagnostic<? extends JavaFileObject> d,
+                String fileName,
+                String source
+            ) {
+                this.kind = d.getKind();
+                this.fileName = fileName;
+                this.line = d.getLineNumber();
+                this.column = d.getColumnNumber();
+                this.message = d.getMessage(null);
+                String[] lines = source.split("\\R", -1);
+                this.sourceLine = line >= 1 && line <= lines.length
+                    ? lines[(int) line - 1]
+                    : null;
             }
-        }
 
-        public File executeStudentCode(boolean isJudge) {
-            String dataPath = isJudge ? judgeDataPath : studentDataPath;
-            try {
-                if (dataPath != null) {
-                    Files.copy(
-                        Path.of(dataPath),
-                        Path.of(
-                            CompetitionExecutionDir,
-                            String.format("%s.dat", name.toLowerCase())
-                        ),
-                        StandardCopyOption.REPLACE_EXISTING
-                    );
+            public boolean isError() {
+                return kind == Diagnostic.Kind.ERROR;
+            }
+
+            // mimic the way javac prints diagnostics so output looks the same either way
+            @Override
+            public String toString() {
+                String label = switch (kind) {
+                    case ERROR -> "error";
+                    case WARNING, MANDATORY_WARNING -> "warning";
+                    default -> "note";
+                };
+                if (line < 1) {
+                    return String.format("%s: %s", label, message);
                 }
-                ProcessBuilder pb = new ProcessBuilder("java", name).directory(
-                    new File(CompetitionExecutionDir)
+                StringBuilder sb = new StringBuilder(
+                    String.format("%s:%d: %s: %s", fileName, line, label, message)
                 );
-                File studentOutputFile = null;
-                if (isJudge) {
-                    studentOutputFile = File.createTempFile(
-                        name,
-                        "student-output"
-                    );
-                    studentOutputFile.deleteOnExit();
-                    pb.redirectOutput(studentOutputFile);
-                } else {
-                    pb.redirectOutput(Redirect.INHERIT);
+                if (sourceLine != null) {
+                    sb.append("\n").append(sourceLine).append("\n");
+                    sb.append(" ".repeat((int) Math.max(0, column - 1)));
+                    sb.append("^");
                 }
-                pb.start().waitFor();
-                return studentOutputFile;
-            } catch (IOException | InterruptedException e) {
-                return null;
+                return sb.toString();
             }
         }
 
-        public boolean judge(String studentCodePath) {
-            if (accepted) return true;
+        public static class CompileResult {
 
-            numTries++;
-            IOUtils.createDirIfAbsent(Path.of(CompetitionExecutionDir));
-            System.out.println("Compiling...");
-            int statusCode = compileStudentCode(studentCodePath, true);
-            if (statusCode != 0) {
-                System.out.println("Failed to compile.");
-                cleanUpExecution();
-                return false;
+            public final boolean success;
+            // binary class name -> class file bytes
+            public final Map<String, byte[]> classes;
+            public final List<CompileDiagnostic> diagnostics;
+
+            CompileResult(
+                boolean success,
+                Map<String, byte[]> classes,
+                List<CompileDiagnostic> diagnostics
+            ) {
+                this.success = success;
+                this.classes = classes;
+                this.diagnostics = diagnostics;
             }
-            System.out.println("Running...");
-            File studentOutput = executeStudentCode(true);
-            boolean isCorrect = isCorrectOutput(studentOutput);
-            System.out.println("Run complete.");
-            try {
-                Files.deleteIfExists(studentOutput.toPath());
-            } catch (IOException e) {
-                // should I do something?
+
+            public long errorCount() {
+                return diagnostics.stream().filter(d -> d.isError()).count();
             }
-            cleanUpExecution();
-            accepted = isCorrect;
-            return isCorrect;
         }
 
-        private void cleanUpExecution() {
-            IOUtils.delete(CompetitionExecutionDir);
-        }
+        private static class SourceFile extends SimpleJavaFileObject {
 
-        private boolean isCorrectOutput(File studentOutput) {
-            File judgeOutput = new File(judgeOutPath);
-            if (USE_LEVENSHTEIN_JUDGING) {
-                return (
-                    diffOutput(judgeOutput, studentOutput) <=
-                    MAX_LEVENSHTEIN_DISTANCE
-                );
+            private final String source;
+
+            SourceFile(String fileName, String source) {
+                super(URI.create("string:///" + fileName), Kind.SOURCE);
+                this.source = source;
             }
 
-            // fallback to simple .equals approach
-            return isSameOutput(judgeOutput, studentOutput);
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
         }
 
-        private boolean isCorrectOutput(
-            List<String> correctOutput,
-            List<String> studentOutput
-        ) {
-            BufferedReader correct = new BufferedReader(
-                new StringReader(String.join("\n", correctOutput))
-            );
-            BufferedReader student = new BufferedReader(
-                new StringReader(String.join("\n", studentOutput))
-            );
-            if (USE_LEVENSHTEIN_JUDGING) {
-                return diffOutput(correct, student) <= MAX_LEVENSHTEIN_DISTANCE;
-            }
+        private static class ClassFile extends SimpleJavaFileObject {
 
-            // fallback to simple .equals approach
-            return isSameOutput(correct, student);
-        }
+            private final ByteArrayOutputStream bytes =
+                new ByteArrayOutputStream();
 
-        private boolean isSameOutput(File correctOutput, File studentOutput) {
-            try {
-                return isSameOutput(
-                    new BufferedReader(new FileReader(correctOutput)),
-                    new BufferedReader(new FileReader(studentOutput))
+            ClassFile(String className) {
+                super(
+                    URI.create(
+                        "mem:///" + className.replace('.', '/') + ".class"
+                    ),
+                    Kind.CLASS
                 );
-            } catch (FileNotFoundException e) {
-                return false;
+            }
+
+            @Override
+            public OutputStream openOutputStream() {
+                return bytes;
             }
         }
 
-        @SuppressWarnings("ConvertToTryWithResources")
-        private boolean isSameOutput(
-            BufferedReader correctReader,
-            BufferedReader studentReader
-        ) {
-            try {
-                String c = correctReader.readLine();
-                String s = studentReader.readLine();
-
-                while (c != null && s != null) {
-                    if (!s.trim().equals(c.trim())) {
-                        // System.out.printf("Mismatch:\n\tExpected: %s\n\tGot: %s\n", c, s);
-                        correctReader.close();
-                        studentReader.close();
-                        return false;
-                    }
-                    s = studentReader.readLine();
-                    c = correctReader.readLine();
-                }
+        // keeps every class javac emits in memory instead of next to the source
+        private static class MemoryFileManager
+            extends ForwardingJavaFileManager<StandardJavaFileManager> {
 
-                correctReader.close();
-                studentReader.close();
+            private final Map<String, ClassFile> output = new TreeMap<>();
 
-                // make sure that neither the correct answer nor the student answer has an extra
-                // blank line
-                if (c != null && c.isBlank()) c = null;
-                if (s != null && s.isBlank()) s = null;
+            MemoryFileManager(StandardJavaFileManager fileManager) {
+                super(fileManager);
+            }
 
-                return ((c == null || s == null) && (s == null && c == null));
-            } catch (IOException e) {
-                return false;
+            @Override
+            public JavaFileObject getJavaFileForOutput(
+                Location location,
+                String className,
+                JavaFileObject.Kind kind,
+                FileObject sibling
+            ) {
+                ClassFile f = new ClassFile(className);
+                output.put(className, f);
+                return f;
             }
-        }
 
-        private int diffOutput(File correctOutput, File studentOutput) {
-            try {
-                return diffOutput(
-                    new BufferedReader(new FileReader(correctOutput)),
-                    new BufferedReader(new FileReader(studentOutput))
+            Map<String, byte[]> getClasses() {
+                Map<String, byte[]> classes = new TreeMap<>();
+                output.forEach((name, f) ->
+                    classes.put(name, f.bytes.toByteArray())
                 );
-            } catch (FileNotFoundException e) {
-                return Integer.MAX_VALUE;
+                return classes;
             }
         }
 
-        @SuppressWarnings("ConvertToTryWithResources")
-        private int diffOutput(
-            BufferedReader correctReader,
-            BufferedReader studentReader
-        ) {
-            try {
-                int distance = 0;
-                String c = correctReader.readLine();
-                String s = studentReader.readLine();
+        private static final JavaCompiler compiler =
+            ToolProvider.getSystemJavaCompiler();
 
-                while (c != null && s != null) {
-                    distance += levenshtein(c.trim(), s.trim());
-                    s = studentReader.readLine();
-                    c = correctReader.readLine();
-                }
-                correctReader.close();
-                studentReader.close();
+        // The standard file manager caches the platform class index, which is most of
+        // what makes a warm compile fast. They are not thread safe, so compiles borrow
+        // one of a few shared ones, the most recently used (so warmest) first, and
+        // only wait when all of them are busy.
+        private static final int MAX_FILE_MANAGERS = Math.max(
+            2,
+            Runtime.getRuntime().availableProcessors()
+        );
+        private static final Deque<StandardJavaFileManager> idleFileManagers =
+            new ArrayDeque<>();
+        private static int fileManagerCount = 0;
 
-                // make sure that neither the correct answer nor the student answer has an extra
-                // blank line
-                if (c != null && c.isBlank()) c = null;
-                if (s != null && s.isBlank()) s = null;
-                // if either c or s is null and they are not both null, then one did not finish,
-                // so completely wrong output
-                if ((c == null || s == null) && !(s == null && c == null)) {
-                    return Integer.MAX_VALUE;
+        private static StandardJavaFileManager borrowFileManager() {
+            boolean interrupted = false;
+            try {
+                synchronized (idleFileManagers) {
+                    while (
+                        idleFileManagers.isEmpty() &&
+                        fileManagerCount >= MAX_FILE_MANAGERS
+                    ) {
+                        try {
+                            idleFileManagers.wait();
+                        } catch (InterruptedException e) {
+                            interrupted = true;
+                        }
+                    }
+                    if (!idleFileManagers.isEmpty()) {
+                        return idleFileManagers.pollFirst();
+                    }
+                    fileManagerCount++;
                 }
-
-                return distance;
-            } catch (IOException e) {
-                return Integer.MAX_VALUE; // failed to read,
+            } finally {
+                if (interrupted) Thread.currentThread().interrupt();
             }
+            StandardJavaFileManager fm = compiler.getStandardFileManager(
+                null,
+                null,
+                null
+            );
+            try {
+                // javac used to run inside an otherwise empty execution directory,
+                // so don't let student code see anything on the launcher's classpath
+                fm.setLocation(StandardLocation.CLASS_PATH, List.of());
+            } catch (IOException e) {}
+            return fm;
         }
 
-        // copied from baeldung [https://www.baeldung.com/java-levenshtein-distance]
-        private static int costOfSubstitution(char a, char b) {
-            return a == b ? 0 : 1;
+        private static void returnFileManager(StandardJavaFileManager fm) {
+            synchronized (idleFileManagers) {
+                idleFileManagers.addFirst(fm);
+                idleFileManagers.notify();
+            }
         }
 
-        private static int min(int... numbers) {
-            return Arrays.stream(numbers).min().orElse(Integer.MAX_VALUE);
+        private static final List<String> OPTIONS = List.of("-proc:none");
+
+        public static boolean isAvailable() {
+            return compiler != null;
         }
 
-        private static int levenshtein(String x, String y) {
-            int[][] dp = new int[x.length() + 1][y.length() + 1];
+        public static void writeClasses(Map<String, byte[]> classes, Path dir)
+            throws IOException {
+            for (Map.Entry<String, byte[]> e : classes.entrySet()) {
+                Path classFile = dir.resolve(
+                    e.getKey().replace('.', File.separatorChar) + ".class"
+                );
+                Files.createDirectories(classFile.getParent());
+                Files.write(classFile, e.getValue());
+            }
+        }
 
-            for (int i = 0; i <= x.length(); i++) {
-                for (int j = 0; j <= y.length(); j++) {
-                    if (i == 0) {
-                        dp[i][j] = j;
-                    } else if (j == 0) {
-                        dp[i][j] = i;
-                    } else {
-                        dp[i][j] = min(
-                            dp[i - 1][j - 1] +
-                                costOfSubstitution(
-                                    x.charAt(i - 1),
-                                    y.charAt(j - 1)
-                                ),
-                            dp[i - 1][j] + 1,
-                            dp[i][j - 1] + 1
-                        );
-                    }
-                }
+        public static CompileResult compile(String fileName, String source) {
+            DiagnosticCollector<JavaFileObject> collector =
+                new DiagnosticCollector<>();
+            StandardJavaFileManager shared = borrowFileManager();
+            MemoryFileManager fileManager = new MemoryFileManager(shared);
+            boolean success;
+            try {
+                success = compiler
+                    .getTask(
+                        null,
+                        fileManager,
+                        collector,
+                        OPTIONS,
+                        null,
+                        List.of(new SourceFile(fileName, source))
+                    )
+                    .call();
+            } finally {
+                returnFileManager(shared);
             }
 
-            return dp[x.length()][y.length()];
+            List<CompileDiagnostic> diagnostics = collector
+                .getDiagnostics()
+                .stream()
+                .map(d -> new CompileDiagnostic(d, fileName, source))
+                .collect(Collectors.toList());
+            return new CompileResult(
+                success,
+                fileManager.getClasses(),
+                diagnostics
+            );
         }
-    }
-
-    public static class Competition {
 
-        Map<String, Problem> problems = new HashMap<>();
-        public PrintStream out = System.out;
+        public static CompileResult compile(String fileName, byte[] source) {
+            // javac reads sources with the platform charset unless told otherwise
+            return compile(
+                fileName,
+                new String(source, Charset.defaultCharset())
+            );
+        }
 
-        @Override
-        public String toString() {
-            int totalScore = 0;
-            StringBuilder sb = new StringBuilder(
-                "========================= Start Problem List =========================\n"
+        // the first compile loads and JITs a good chunk of javac and fills the file
+        // manager the next compile borrows, so pay for that while the student is
+        // still reading the problem list
+        public static void warmUp() {
+            if (!isAvailable()) return;
+            Thread t = new Thread(
+                () ->
+                    compile(
+                        "Warmup.java",
+                        """
+                        import java.io.*;
+                        import java.util.*;
+                        public class Warmup {
+                            public static void main(String[] args) throws IOException {
+                                Scanner s = new Scanner(new File("warmup.dat"));
+                                List<Integer> l = new ArrayList<>();
+                                while (s.hasNextInt()) l.add(s.nextInt());
+                                System.out.println(l);
+                            }
+                        }
+                        """
+                    ),
+                "compiler-warmup"
             );
-            for (Problem p : problems.values()) {
-                sb.append(p.toString());
-                totalScore += p.getScore();
+            t.setDaemon(true);
+            t.start();
+        }
+    }
+
+    // `java UILaunch.java` compiles this whole file before main even runs, which is
+    // most of the startup time. A launch from source compiles a copy of itself into
+    // CacheDir in the background (keyed by a hash of the file and the JDK). Once
+    // that copy exists, a launch from source hands over to it straight away (see
+    // reexec), and restart runs it directly, along with a CDS archive of the
+    // classes the previous cached session loaded.
+    public static class SelfCache {
+
+        // set on cached launches to where the source is, so they don't cache again
+        private static final String SOURCE_PROPERTY = "csuil.launcher.source";
+        private static final Path root = Path.of(CacheDir, "launcher");
+        private static final int MAX_VERSIONS = 3;
+
+        public static boolean isCachedLaunch() {
+            return System.getProperty(SOURCE_PROPERTY) != null;
+        }
+
+        // Runs this launch as the cached copy and exits with its status, or returns
+        // if this already is one or there's no copy yet. The compile from source has
+        // already been paid for by now; what the handover buys is the rest of the
+        // session running from the jar and CDS archive, with none of the source
+        // launcher's compiler state kept around. The copy is told where the source
+        // is, which is also what stops it from handing over again.
+        public static void reexec(String[] args) {
+            if (isCachedLaunch()) return;
+            if (System.getProperty("jdk.launcher.sourcefile") == null) return;
+            List<String> command = command(sourceFile(), args);
+            if (command == null) return;
+            Process child;
+            try {
+                child = new ProcessBuilder(command).inheritIO().start();
+            } catch (IOException e) {
+                return; // carry on from source
             }
-            sb.append(
-                "=========================  End Problem List  =========================\n"
+            try {
+                System.exit(child.waitFor());
+            } catch (InterruptedException e) {
+                child.destroy();
+                System.exit(1);
+            }
+        }
+
+        // the file this was launched from, or would be by `java UILaunch.java`
+        public static Path sourceFile() {
+            String file = nullish(
+                System.getProperty(SOURCE_PROPERTY),
+                System.getProperty("jdk.launcher.sourcefile")
             );
-            sb.append("Total Score: ");
-            sb.append(totalScore);
-            sb.append("\n");
-            return sb.toString();
+            return file != null ? Path.of(file) : Path.of(CurrentDir, "UILaunch.java");
         }
 
-        public Map<String, Problem> getProblems() {
-            return problems;
+        private static Path dir(Path source) throws IOException {
+            return root.resolve(
+                IOUtils.sha256(
+                    Files.readAllBytes(source),
+                    Runtime.version().toString().getBytes(StandardCharsets.UTF_8)
+                )
+            );
         }
 
-        public Problem getProblem(String name) {
-            return problems.getOrDefault(name, null);
+        // CDS won't archive classes loaded from a directory, so they go in a jar
+        private static Path jar(Path dir) {
+            return dir.resolve("launcher.jar");
         }
 
-        public int getContestScore() {
-            return problems
-                .values()
-                .stream()
-                .map(p -> p.getScore())
-                .reduce(0, (a, b) -> a + b);
+        private static boolean isReady(Path dir) {
+            return Files.exists(jar(dir));
         }
 
-        public static Competition ReadFromDir(String... judgeFolderKeywords) {
-            String judgePath = IOUtils.checkDir(
-                CompetitionDir,
-                false,
-                judgeFolderKeywords
+        // compiles the source into the cache on a background thread, if needed
+        public static void populateAsync() {
+            if (isCachedLaunch() || !InProcessCompiler.isAvailable()) return;
+            Path source = sourceFile();
+            if (!Files.exists(source)) return;
+            Thread t = new Thread(
+                () -> {
+                    try {
+                        populate(source);
+                    } catch (IOException e) {
+                        // just compiled from source again next time
+                    }
+                },
+                "self-cache"
             );
-            if (judgePath == null) {
-                // IOUtils.cleanUpTemp();
-                exitProgram(-1, "Could Not Find Judge Output Files.");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            t.start();
+        }
+
+        private static void populate(Path source) throws IOException {
+            Path dir = dir(source);
+            if (isReady(dir)) {
+                dir.toFile().setLastModified(System.currentTimeMillis());
+                return;
             }
-            Set<String> files = IOUtils.listFiles(judgePath);
-            Set<String> problemNames = new TreeSet<>();
+            InProcessCompiler.CompileResult result = InProcessCompiler.compile(
+                "UILaunch.java",
+                Files.readAllBytes(source)
+            );
+            if (!result.success) return;
 
-            files
-                .stream()
-                .filter(f -> !(f.endsWith(".out") || f.endsWith(".dat")))
-                .forEach(f -> {
-                    problemNames.add(
-                        Path.of(f).getFileName().toString().split("\\.")[0]
+            Files.createDirectories(dir);
+            Path tmp = dir.resolve("launcher.jar." + ProcessHandle.current().pid());
+            try (
+                JarOutputStream out = new JarOutputStream(
+                    Files.newOutputStream(tmp)
+                )
+            ) {
+                for (Map.Entry<String, byte[]> e : result.classes.entrySet()) {
+                    out.putNextEntry(
+                        new JarEntry(e.getKey().replace('.', '/') + ".class")
                     );
-                });
+                    out.write(e.getValue());
+                    out.closeEntry();
+                }
+            }
+            Files.move(
+                tmp,
+                jar(dir),
+                StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING
+            );
 
-            Competition competition = new Competition();
-            // surely there's a better way, but I don't really care enough to make it faster
-            // (since there should only ever be 12 problems)
-            problemNames
-                .stream()
-                .forEach(name -> {
-                    String nameLC = name.toLowerCase();
-                    String judgeOut = null;
-                    String judgeData = null;
-                    String codePath = null;
-                    for (String f : files
-                        .stream()
-                        .filter(f ->
-                            Path.of(f)
-                                .getFileName()
-                                .toString()
-                                .toLowerCase()
-                                .startsWith(nameLC)
-                        )
-                        .collect(Collectors.toList())) {
-                        @SuppressWarnings("SingleCharRegex")
-                        String[] parts = f.split("\\.");
-                        String ext = parts[parts.length - 1].toLowerCase();
-                        switch (ext) {
-                            case "out" -> judgeOut = f;
-                            case "dat" -> judgeData = f;
-                            case "java" -> codePath = f;
-                            default -> {
-                            }
-                        }
-                    }
+            // older versions of the file aren't coming back
+            try (Stream<Path> list = Files.list(root)) {
+                List<Path> old = list
+                    .filter(Files::isDirectory)
+                    .sorted(
+                        Comparator.comparingLong((Path d) ->
+                            d.toFile().lastModified()
+                        ).reversed()
+                    )
+                    .skip(MAX_VERSIONS)
+                    .toList();
+                old.forEach(IOUtils::delete);
+            }
+        }
 
-                    if (!notNull(judgeOut, codePath)) return; // couldn't find data, but not sure about judge data (since Q1 lacks a data
-                    // file)
+        // runs the cached copy of source, or null if there isn't one yet
+        public static List<String> command(Path source, String... args) {
+            Path dir;
+            try {
+                dir = dir(source);
+            } catch (IOException e) {
+                return null;
+            }
+            if (!isReady(dir)) return null;
 
-                    competition
-                        .getProblems()
-                        .put(
-                            name.toLowerCase(),
-                            new Problem(name, judgeData, judgeOut, codePath)
-                        );
-                });
-            // now, we then try to find the "A202X_StudentData" folder
-            String studentDataPath = IOUtils.checkDir(
-                CompetitionDir,
-                false,
-                "StudentData"
+            List<String> command = new ArrayList<>();
+            command.add(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString()
             );
-            if (studentDataPath == null) {
-                System.out.println(
-                    "[WARNING] Unable to extract student program data. Will be unable to test student code."
+            // dynamic CDS archives need JDK 13, the first run writes one out
+            if (Runtime.version().feature() >= 13) {
+                Path archive = dir.resolve("launcher.jsa");
+                command.add(
+                    Files.exists(archive)
+                        ? "-XX:SharedArchiveFile=" + archive
+                        : "-XX:ArchiveClassesAtExit=" + archive
                 );
+                // it's chatty about classes it skips, and a stale archive is fine
+                command.add("-Xlog:cds=off,cds+dynamic=off");
             }
-            for (String dataFile : IOUtils.listFiles(studentDataPath)) {
-                String fileName = IOUtils.getFileName(dataFile);
-                // 2025 state student data files are suffixed with `_student`
-                if (fileName.contains("_student")) {
-                    fileName = fileName.replace("_student", "");
-                }
-                String[] parts = fileName.split("\\.");
-                String problemName = parts[parts.length - 2];
-                competition
-                    .getProblem(problemName)
-                    .setStudentDataPath(dataFile);
-            }
-            return competition;
+            command.add("-D" + SOURCE_PROPERTY + "=" + source.toAbsolutePath());
+            command.add("-cp");
+            command.add(jar(dir).toString());
+            command.add("UILaunch");
+            command.addAll(List.of(args));
+            return command;
         }
+    }
 
-        public static Competition ReadFromDir() {
-            return ReadFromDir("Solutions", "JudgeData", "OutFiles");
+    // Compiled classes keyed by a hash of the source and the JDK that compiled it,
+    // so running an unchanged file (or the judge's solution) never recompiles it.
+    // Lives outside CompetitionDirRoot so it survives between launches.
+    public static class CompileCache {
+
+        private static final long MAX_CACHE_BYTES = 64L * 1024 * 1024;
+        private static final Path root = Path.of(CacheDir, "classes");
+
+        private static final AtomicLong hits = new AtomicLong();
+        private static final AtomicLong misses = new AtomicLong();
+        // key -> size on disk, least recently used first
+        private static Map<String, Long> entries = null;
+        private static long totalBytes = 0;
+
+        public static String key(String fileName, byte[] source) {
+            return IOUtils.sha256(
+                source,
+                fileName.getBytes(StandardCharsets.UTF_8),
+                Runtime.version().toString().getBytes(StandardCharsets.UTF_8)
+            );
         }
 
-        public void setup() {
-            IOUtils.createDirIfAbsent(Path.of(StudentSourceDir));
-            for (Problem p : problems.values()) {
-                String name = p.getName();
-                try {
-                    Files.createFile(
-                        Path.of(
-                            StudentSourceDir,
-                            String.format("%s.java", name)
-                        )
-                    );
-                } catch (IOException e) {}
-            }
+        private static void loadIndex() {
+            if (entries != null) return;
+            entries = new LinkedHashMap<>(16, 0.75f, true);
+            IOUtils.createDirIfAbsent(root);
+            try (Stream<Path> dirs = Files.list(root)) {
+                dirs
+                    .filter(Files::isDirectory)
+                    .sorted(
+                        Comparator.comparingLong(d -> d.toFile().lastModified())
+                    )
+                    .forEach(d -> {
+                        String key = d.getFileName().toString();
+                        if (key.contains(".")) {
+                            IOUtils.delete(d); // left behind by a crashed write
+                            return;
+                        }
+                        long size = IOUtils.sizeOf(d);
+                        entries.put(key, size);
+                        totalBytes += size;
+                    });
+            } catch (IOException e) {}
         }
 
-        public void printHelp(String cmd) {
-            if (cmd.split(" ").length > 1) {
-                printTimerHelp();
-                return;
+        public static synchronized Map<String, byte[]> get(String key) {
+            loadIndex();
+            if (!entries.containsKey(key)) {
+                misses.incrementAndGet();
+                return null;
             }
 
-            out.println(
-                """
-                Summary Of Commands:
+            Path dir = root.resolve(key);
+            Map<String, byte[]> classes;
+            try {
+                classes = IOUtils.readClassFiles(dir);
+                dir.toFile().setLastModified(System.currentTimeMillis());
+            } catch (IOException e) {
+                // unreadable entry, forget about it and compile again
+                entries.remove(key);
+                IOUtils.delete(dir);
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return classes;
+        }
 
-                "timer <action> <problem?>" -- use the command "help timer" to see the available actions
-                "list" -- lists problems
-                "judge <problem>" -- judges the problem
-                "run <problem>" -- runs the problem code with student data
-                "check <problem>" -- checks if the problem code produces the same solution using student data
-                "show <problem>" -- shows your current code for the problem that it would run/judge
-                "data <problem>" -- outputs the student data (if exists)
-                "save-sd <problem>" -- saves student data to student code directory
-                "editor <problem>" -- opens problem code file in default application (unlikely to be the code editor you want)
-                "problem-packet" -- opens the student packet in the default application (likely a browser)
-                "clear" -- clears the screen
-                "exit" -- stops the competition
-                "here" -- opens the student code directory
-                "dir" -- lists student code directorysd
-                "restart" -- (only useful for development) effectively "replaces" the current instance of the program with a fresh one
-                "help" -- shows this message again"""
-            );
+        // unlike get, doesn't count as a hit or miss
+        public static synchronized boolean contains(String key) {
+            loadIndex();
+            return entries.containsKey(key);
         }
 
-        public void printTimerHelp() {
+        public static synchronized void put(
+            String key,
+            Map<String, byte[]> classes
+        ) {
+            loadIndex();
+            if (entries.containsKey(key)) return;
+
+            Path dir = root.resolve(key);
+            Path tmp = root.resolve(key + ".tmp");
+            try {
+                IOUtils.delete(tmp);
+                InProcessCompiler.writeClasses(classes, tmp);
+                long size = IOUtils.sizeOf(tmp);
+                Files.move(tmp, dir, StandardCopyOption.ATOMIC_MOVE);
+                entries.put(key, size);
+                totalBytes += size;
+            } catch (IOException e) {
+                IOUtils.delete(tmp);
+                return;
+            }
+
+            Iterator<Map.Entry<String, Long>> eldest = entries
+                .entrySet()
+                .iterator();
+            while (totalBytes > MAX_CACHE_BYTES && eldest.hasNext()) {
+                Map.Entry<String, Long> e = eldest.next();
+                if (e.getKey().equals(key)) continue;
+                IOUtils.delete(root.resolve(e.getKey()));
+                totalBytes -= e.getValue();
+                eldest.remove();
+            }
+        }
+
+        public static synchronized String describe() {
+            loadIndex();
+            return String.format(
+                "Compile cache: %d hits, %d misses, %d entries (%.1f KB of %d MB)",
+                hits.get(),
+                misses.get(),
+                entries.size(),
+                totalBytes / 1024.0,
+                MAX_CACHE_BYTES / (1024 * 1024)
+            );
+        }
+    }
+
+    // Output of the judge's solution, keyed by the problem, the solution source and
+    // the data file it read. `check` only has to run the student's code once the
+    // reference output is known, and editing the data file changes the key.
+    public static class ReferenceOutputCache {
+
+        private static final Path root = Path.of(CacheDir, "reference-output");
+        // the files on disk are the real cache, this only keeps the most
+        // recently used outputs around so a long session doesn't grow forever
+        private static final int MEMORY_LIMIT = 64;
+        private static final Map<String, List<String>> memory =
+            Collections.synchronizedMap(
+                new LinkedHashMap<>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(
+                        Map.Entry<String, List<String>> eldest
+                    ) {
+                        return size() > MEMORY_LIMIT;
+                    }
+                }
+            );
+        private static final AtomicLong hits = new AtomicLong();
+        private static final AtomicLong misses = new AtomicLong();
+
+        public static String key(
+            String problemName,
+            String solutionPath,
+            String dataPath
+        ) throws IOException {
+            return IOUtils.sha256(
+                problemName.toLowerCase().getBytes(StandardCharsets.UTF_8),
+                Files.readAllBytes(Path.of(solutionPath)),
+                dataPath != null
+                    ? Files.readAllBytes(Path.of(dataPath))
+                    : new byte[0],
+                Runtime.version().toString().getBytes(StandardCharsets.UTF_8)
+            );
+        }
+
+        public static List<String> get(String key) {
+            List<String> lines = memory.get(key);
+            if (lines == null) {
+                Path file = root.resolve(key + ".out");
+                if (Files.exists(file)) {
+                    lines = IOUtils.readLines(file.toFile());
+                    memory.put(key, lines);
+                }
+            }
+            if (lines == null) {
+                misses.incrementAndGet();
+            } else {
+                hits.incrementAndGet();
+            }
+            return lines;
+        }
+
+        public static void put(String key, List<String> lines) {
+            memory.put(key, lines);
+            IOUtils.createDirIfAbsent(root);
+            try {
+                // two checks of the same problem can finish at the same time
+                Path tmp = Files.createTempFile(root, key, ".tmp");
+                Files.write(tmp, lines);
+                Files.move(
+                    tmp,
+                    root.resolve(key + ".out"),
+                    StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING
+                );
+            } catch (IOException e) {
+                // still cached in memory, so not a big deal
+            }
+        }
+
+        public static String describe() {
+            return String.format(
+                "Reference outputs: %d hits, %d misses, %d in memory",
+                hits.get(),
+                misses.get(),
+                memory.size()
+            );
+        }
+    }
+
+    // Sends what the launcher prints on one thread (and the threads it starts)
+    // somewhere else, so every problem graded in parallel gets a log of its own
+    // instead of them all interleaving on the console.
+    public static class OutputRouter {
+
+        // inherited so the threads a grading thread starts write to its log too
+        private static final InheritableThreadLocal<OutputStream> route =
+            new InheritableThreadLocal<>();
+
+        private static class RoutedOutputStream extends OutputStream {
+
+            private final OutputStream fallback;
+
+            RoutedOutputStream(OutputStream fallback) {
+                this.fallback = fallback;
+            }
+
+            private OutputStream target() {
+                return nullish(route.get(), fallback);
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                target().write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                target().write(b, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                target().flush();
+            }
+        }
+
+        // System.out and System.err are shared by everything, so closing one (say
+        // through a PrintWriter wrapped around it) only flushes it
+        private static class UnclosablePrintStream extends PrintStream {
+
+            UnclosablePrintStream(OutputStream out) {
+                super(out, false);
+            }
+
+            @Override
+            public void close() {
+                flush();
+            }
+        }
+
+        private static boolean installed = false;
+
+        private static synchronized void install() {
+            if (installed) return;
+            installed = true;
+            // PrintStream only hands bytes to the routed stream, the target decides
+            // when to flush (the console flushes itself, logs never need to)
+            System.setOut(
+                new UnclosablePrintStream(new RoutedOutputStream(System.out))
+            );
+            System.setErr(
+                new UnclosablePrintStream(new RoutedOutputStream(System.err))
+            );
+        }
+
+        // runs launcher code with everything it prints on this thread sent to sink
+        public static <T> T redirect(OutputStream sink, Supplier<T> task) {
+            install();
+            OutputStream previous = route.get();
+            route.set(sink);
+            try {
+                return task.get();
+            } finally {
+                System.out.flush();
+                System.err.flush();
+                route.set(previous);
+            }
+        }
+    }
+
+    // what happened when a student program ran, whichever way it was run
+    public static class RunResult {
+
+        public int exitCode = 0;
+        public volatile boolean timedOut = false;
+        public volatile boolean outOfMemory = false;
+        // stopped by the caller, e.g. the output was already known to be wrong
+        public volatile boolean cancelled = false;
+        public long wallNanos = 0;
+        public long cpuNanos = -1; // -1 when it couldn't be measured
+        public long peakMemoryBytes = -1;
+        public File output; // null when the output went to the console
+
+        // the verdict the run earned before anyone even looks at its output
+        public Verdict failure() {
+            if (timedOut) return Verdict.TIME_LIMIT_EXCEEDED;
+            if (outOfMemory) return Verdict.MEMORY_LIMIT_EXCEEDED;
+            if (exitCode != 0 && !cancelled) return Verdict.RUNTIME_ERROR;
+            return null;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                "wall %d ms, cpu %s, peak memory %s",
+                wallNanos / 1_000_000,
+                cpuNanos < 0 ? "n/a" : (cpuNanos / 1_000_000) + " ms",
+                peakMemoryBytes < 0
+                    ? "n/a"
+                    : String.format("%.1f MB", peakMemoryBytes / 1048576.0)
+            );
+        }
+    }
+
+    // Babysits a forked student JVM: enforces the time limit, samples cpu time and
+    // memory while it runs, and forwards its stderr while looking for an OOM.
+    public static class ProcessMonitor {
+
+        private static final long SAMPLE_INTERVAL_MS = 10;
+
+        // shouldStop lets the caller end the run early, see RunResult.cancelled
+        public static RunResult watch(
+            Process process,
+            long timeLimitMillis,
+            BooleanSupplier shouldStop
+        ) throws InterruptedException {
+            long start = System.nanoTime();
+            RunResult result = new RunResult();
+            Thread errors = forwardErrors(process, result, System.err);
+
+            ProcessHandle handle = process.toHandle();
+            while (!process.waitFor(SAMPLE_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+                sample(handle, result);
+                if (shouldStop.getAsBoolean()) {
+                    result.cancelled = true;
+                    killTree(process);
+                    break;
+                }
+                if (System.nanoTime() - start > timeLimitMillis * 1_000_000) {
+                    result.timedOut = true;
+                    killTree(process);
+                    break;
+                }
+            }
+            process.waitFor();
+            result.wallNanos = System.nanoTime() - start;
+            result.exitCode = process.exitValue();
+            errors.join(1000);
+            return result;
+        }
+
+        // the student might have started processes of their own
+        public static void killTree(Process process) {
+            process.descendants().forEach(ProcessHandle::destroyForcibly);
+            process.destroyForcibly();
+        }
+
+        private static void sample(ProcessHandle handle, RunResult result) {
+            handle
+                .info()
+                .totalCpuDuration()
+                .ifPresent(d -> result.cpuNanos = d.toNanos());
+            if (!IsUnix) return;
+            // VmHWM is the resident set high water mark, which only ever goes up
+            try (
+                BufferedReader status = Files.newBufferedReader(
+                    Path.of("/proc", String.valueOf(handle.pid()), "status")
+                )
+            ) {
+                String line;
+                while ((line = status.readLine()) != null) {
+                    if (line.startsWith("VmHWM:")) {
+                        String kb = line.replaceAll("[^0-9]", "");
+                        result.peakMemoryBytes = Long.parseLong(kb) * 1024;
+                        break;
+                    }
+                }
+            } catch (IOException | NumberFormatException e) {
+                // process already gone, keep the last sample
+            }
+        }
+
+        private static Thread forwardErrors(
+            Process process,
+            RunResult result,
+            PrintStream target
+        ) {
+            Thread t = new Thread(
+                () -> {
+                    try (
+                        BufferedReader err = new BufferedReader(
+                            new InputStreamReader(process.getErrorStream())
+                        )
+                    ) {
+                        String line;
+                        while ((line = err.readLine()) != null) {
+                            if (line.contains("java.lang.OutOfMemoryError")) {
+                                result.outOfMemory = true;
+                            }
+                            target.println(line);
+                        }
+                    } catch (IOException e) {}
+                },
+                "student-stderr"
+            );
+            t.setDaemon(true);
+            t.start();
+            return t;
+        }
+    }
+
+    // A directory that one compile + execute owns until it is closed. Closing hands
+    // it back to SandboxPool instead of deleting it.
+    public static class Sandbox implements AutoCloseable {
+
+        public final Path dir;
+        // what was last compiled into this sandbox, null if that failed
+        Map<String, byte[]> classes;
+        // whose files are in it, so Timings knows who the cleanup was for
+        String problem;
+
+        Sandbox(Path dir) {
+            this.dir = dir;
+        }
+
+        // empties the directory without removing it, false if something is stuck
+        boolean reset() {
+            long start = System.nanoTime();
+            classes = null;
+            boolean success = true;
+            File[] children = dir.toFile().listFiles();
+            if (children == null) return false;
+            for (File child : children) {
+                success &= IOUtils.delete(child);
+            }
+            Timings.lap(problem, Timings.Phase.CLEANUP, start);
+            problem = null;
+            return success;
+        }
+
+        @Override
+        public void close() {
+            SandboxPool.release(this);
+        }
+    }
+
+    // Hands out sandboxes under CompetitionExecutionDir so runs never share files and
+    // can happen at the same time. Released sandboxes are emptied on a background
+    // thread and kept around for the next run.
+    public static class SandboxPool {
+
+        private static final int MAX_IDLE_SANDBOXES = 16;
+
+        private static final AtomicInteger created = new AtomicInteger();
+        private static final Deque<Sandbox> idle = new ConcurrentLinkedDeque<>();
+        private static final ExecutorService reclaimer =
+            Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "sandbox-reclaimer");
+                t.setDaemon(true);
+                return t;
+            });
+
+        public static Sandbox acquire() {
+            Sandbox sandbox = idle.pollFirst();
+            if (sandbox != null && Files.isDirectory(sandbox.dir)) {
+                return sandbox;
+            }
+
+            Path dir = Path.of(
+                CompetitionExecutionDir,
+                String.format("sandbox-%03d", created.incrementAndGet())
+            );
+            IOUtils.createDirIfAbsent(dir);
+            return new Sandbox(dir);
+        }
+
+        static void release(Sandbox sandbox) {
+            reclaimer.execute(() -> {
+                if (sandbox.reset() && idle.size() < MAX_IDLE_SANDBOXES) {
+                    idle.addFirst(sandbox);
+                } else {
+                    // couldn't empty it (probably a process still holding a file),
+                    // so never hand it out again
+                    IOUtils.delete(sandbox.dir);
+                }
+            });
+        }
+    }
+
+    // Student programs finish in well under a second, so a forked run is mostly JVM
+    // startup. This builds an AppCDS archive (once per JDK, in the background) of
+    // the JDK classes a typical program loads, by running a trainer program that
+    // reads a data file with Scanner and pushes things through the usual
+    // collections. Runs get that archive, C1 only, the serial collector and no
+    // perf data file. Until the archive exists the flags still apply.
+    public static class ForkProfile {
+
+        private static final List<String> FLAGS = List.of(
+            "-XX:TieredStopAtLevel=1",
+            "-XX:+UseSerialGC",
+            "-XX:-UsePerfData",
+            "-Xshare:auto"
+        );
+        public static final String TRAINER = """
+            import java.io.*;
+            import java.util.*;
+            import java.util.stream.*;
+
+            public class Trainer {
+
+                public static void main(String[] args) throws IOException {
+                    File file = new File("trainer.dat");
+                    try (PrintWriter out = new PrintWriter(new FileWriter(file))) {
+                        out.println(3);
+                        out.println("alpha 1 2.5");
+                        out.println("bravo 2 3.5");
+                        out.println("charlie 3 4.5");
+                    }
+
+                    Scanner in = new Scanner(file);
+                    int n = in.nextInt();
+                    in.nextLine();
+                    List<String> names = new ArrayList<>();
+                    Map<String, Integer> counts = new HashMap<>();
+                    double total = 0;
+                    while (in.hasNextLine() && n-- > 0) {
+                        String[] parts = in.nextLine().trim().split("\\\\s+");
+                        names.add(parts[0].toUpperCase());
+                        counts.merge(parts[0], Integer.parseInt(parts[1]), Integer::sum);
+                        total += Double.parseDouble(parts[2]);
+                    }
+                    in.close();
+
+                    try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+                        reader.readLine();
+                    }
+                    Scanner tokens = new Scanner("4 5 six");
+                    while (tokens.hasNext()) {
+                        if (tokens.hasNextInt()) tokens.nextInt();
+                        else tokens.next();
+                    }
+
+                    Collections.sort(names);
+                    names.sort(Comparator.reverseOrder());
+                    int[] values = { 5, 3, 1, 4 };
+                    Arrays.sort(values);
+                    Arrays.fill(new char[4], '.');
+                    Deque<Integer> stack = new ArrayDeque<>();
+                    Queue<Integer> queue = new LinkedList<>();
+                    PriorityQueue<Integer> heap = new PriorityQueue<>();
+                    Set<String> seen = new TreeSet<>(new HashSet<>(names));
+                    for (int v : values) {
+                        stack.push(v);
+                        queue.offer(v);
+                        heap.add(v);
+                    }
+                    StringBuilder sb = new StringBuilder();
+                    for (char c : "trainer".toCharArray()) {
+                        if (Character.isLetter(c)) sb.append(Character.toUpperCase(c));
+                    }
+                    String joined = names.stream()
+                        .filter(s -> s.length() > 1)
+                        .map(String::toLowerCase)
+                        .collect(Collectors.joining(", "));
+
+                    System.out.printf("%d %s %.2f%n", names.size(), new TreeMap<>(counts), total);
+                    System.out.println(String.format("%5s|%-5s|%03d", sb.reverse(), joined.substring(0, 3), stack.pop()));
+                    System.out.println(Arrays.toString(values) + seen + heap.poll() + queue.poll());
+                    System.out.println(Math.max(Math.abs(-2), (int) Math.sqrt(Math.pow(3, 2))));
+                }
+            }
+            """;
+
+        private static volatile CompletableFuture<Void> building;
+
+        public static String javaBinary() {
+            return Path.of(System.getProperty("java.home"), "bin", "java")
+                .toString();
+        }
+
+        private static Path archive() {
+            Path dir = Path.of(
+                CacheDir,
+                "cds",
+                IOUtils.sha256(
+                    System.getProperty("java.home").getBytes(StandardCharsets.UTF_8),
+                    Runtime.version().toString().getBytes(StandardCharsets.UTF_8)
+                )
+            );
+            return dir.resolve("students.jsa");
+        }
+
+        public static boolean isReady() {
+            return Files.exists(archive());
+        }
+
+        // the command that runs target (a main class, maybe after a -cp), with the
+        // profile if it's on
+        public static List<String> command(int memoryLimitMb, String... target) {
+            List<String> command = new ArrayList<>();
+            if (FAST_START_FORKED_RUNS) {
+                prepareAsync();
+                // the archive has to be run by the JDK that made it
+                command.add(javaBinary());
+                command.addAll(FLAGS);
+                if (isReady()) {
+                    command.add("-XX:SharedArchiveFile=" + archive());
+                }
+            } else {
+                command.add("java");
+            }
+            command.add(String.format("-Xmx%dm", memoryLimitMb));
+            command.addAll(List.of(target));
+            return command;
+        }
+
+        // for javac, which would otherwise start a full server VM to compile one file
+        public static List<String> javacFlags() {
+            if (!FAST_START_FORKED_RUNS) return List.of();
+            return FLAGS.stream().map(f -> "-J" + f).toList();
+        }
+
+        public static CompletableFuture<Void> prepareAsync() {
+            if (building == null) {
+                synchronized (ForkProfile.class) {
+                    if (building == null) {
+                        building = CompletableFuture.runAsync(() -> {
+                            try {
+                                build();
+                            } catch (IOException | InterruptedException e) {
+                                // runs just go without the archive
+                            }
+                        });
+                    }
+                }
+            }
+            return building;
+        }
+
+        private static void build() throws IOException, InterruptedException {
+            Path archive = archive();
+            if (Files.exists(archive) || !InProcessCompiler.isAvailable()) return;
+            InProcessCompiler.CompileResult trainer = InProcessCompiler.compile(
+                "Trainer.java",
+                TRAINER
+            );
+            if (!trainer.success) return;
+
+            Path work = Files.createTempDirectory(
+                Path.of(CompetitionDirRoot),
+                "cds-"
+            );
+            try {
+                InProcessCompiler.writeClasses(trainer.classes, work);
+                Path classList = work.resolve("classes.lst");
+                int status = new ProcessBuilder(
+                    javaBinary(),
+                    "-Xshare:off",
+                    "-XX:DumpLoadedClassList=" + classList,
+                    "-cp",
+                    ".",
+                    "Trainer"
+                )
+                    .directory(work.toFile())
+                    .redirectErrorStream(true)
+                    .redirectOutput(Redirect.DISCARD)
+                    .start()
+                    .waitFor();
+                if (status != 0) return;
+
+                // only the JDK's classes, so the archive isn't tied to a class path
+                List<String> jdkClasses;
+                try (Stream<String> lines = Files.lines(classList)) {
+                    jdkClasses = lines
+                        .filter(l -> !l.startsWith("Trainer"))
+                        .toList();
+                }
+                Files.write(classList, jdkClasses);
+
+                Files.createDirectories(archive.getParent());
+                Path tmp = work.resolve("students.jsa");
+                status = new ProcessBuilder(
+                    javaBinary(),
+                    "-Xshare:dump",
+                    "-XX:SharedClassListFile=" + classList,
+                    "-XX:SharedArchiveFile=" + tmp
+                )
+                    .directory(work.toFile())
+                    .redirectErrorStream(true)
+                    .redirectOutput(Redirect.DISCARD)
+                    .start()
+                    .waitFor();
+                if (status != 0 || !Files.exists(tmp)) return;
+                Files.move(
+                    tmp,
+                    archive,
+                    StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING
+                );
+            } finally {
+                IOUtils.delete(work);
+            }
+        }
+    }
+
+    // Pre-started JVMs that each run one student program at a time, so running out of
+    // process doesn't mean waiting for a JVM to start. A worker runs a small bootstrap
+    // (Worker below) that connects back to the launcher over loopback, proving who
+    // it is with a token it was given on its stdin, and reads requests from that
+    // socket: the main class, the sandbox to load it from (in a fresh class loader)
+    // and the data file to copy into its working directory. The program's stdout
+    // and stderr come back on the socket as tagged frames, followed by a DONE frame
+    // with how the run went. The worker's own stdout and stderr go to its log, so
+    // a program writing to FileDescriptor.out can't break the frames, and a worker
+    // that won't start leaves a reason behind. Workers are kept per heap size,
+    // since -Xmx is the memory limit.
+    public static class WorkerPool {
+
+        private static final String SOURCE = """
+            import java.io.*;
+            import java.lang.management.*;
+            import java.lang.reflect.*;
+            import java.net.*;
+            import java.nio.file.*;
+            import java.util.*;
+
+            public class Worker {
+
+                static final int READY = 0, OUT = 1, ERR = 2, DONE = 3;
+                static DataOutputStream frames;
+                static boolean outOfMemory;
+
+                static class FrameStream extends OutputStream {
+
+                    final int tag;
+
+                    FrameStream(int tag) {
+                        this.tag = tag;
+                    }
+
+                    public void write(int b) throws IOException {
+                        write(new byte[] { (byte) b }, 0, 1);
+                    }
+
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        if (len == 0) return;
+                        synchronized (frames) {
+                            frames.writeByte(tag);
+                            frames.writeInt(len);
+                            frames.write(b, off, len);
+                        }
+                    }
+
+                    public void flush() throws IOException {
+                        synchronized (frames) {
+                            frames.flush();
+                        }
+                    }
+                }
+
+                // a program closing System.out (a PrintWriter around it, say) mustn't
+                // silence the runs after it
+                static class KeepOpen extends PrintStream {
+
+                    KeepOpen(OutputStream out, boolean autoFlush) {
+                        super(out, autoFlush);
+                    }
+
+                    public void close() {
+                        flush();
+                    }
+                }
+
+                public static void main(String[] args) throws Exception {
+                    String token = new BufferedReader(new InputStreamReader(System.in)).readLine();
+                    Socket socket = new Socket(InetAddress.getLoopbackAddress(), Integer.parseInt(args[0]));
+                    socket.setTcpNoDelay(true);
+                    frames = new DataOutputStream(
+                        new BufferedOutputStream(socket.getOutputStream(), 1 << 16)
+                    );
+                    DataInputStream requests = new DataInputStream(
+                        new BufferedInputStream(socket.getInputStream())
+                    );
+                    frames.writeUTF(token);
+                    PrintStream out = new KeepOpen(
+                        new BufferedOutputStream(new FrameStream(OUT), 1 << 13),
+                        false
+                    );
+                    PrintStream err = new KeepOpen(new FrameStream(ERR), true);
+                    System.setOut(out);
+                    System.setErr(err);
+                    System.setIn(InputStream.nullInputStream());
+                    // what was printed before a System.exit still gets sent
+                    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                        out.flush();
+                        err.flush();
+                    }));
+                    frames.writeByte(READY);
+                    frames.flush();
+
+                    Path home = Path.of("").toAbsolutePath();
+                    while (true) {
+                        String mainClass;
+                        try {
+                            mainClass = requests.readUTF();
+                        } catch (EOFException e) {
+                            return; // the launcher is gone
+                        }
+                        Path classDir = Path.of(requests.readUTF());
+                        String dataFile = requests.readUTF();
+                        clean(home);
+                        if (!dataFile.isEmpty()) {
+                            Path data = Path.of(dataFile);
+                            Files.copy(data, home.resolve(data.getFileName()));
+                        }
+
+                        List<MemoryPoolMXBean> pools = ManagementFactory.getMemoryPoolMXBeans();
+                        pools.forEach(MemoryPoolMXBean::resetPeakUsage);
+                        int threadsBefore = Thread.activeCount();
+                        outOfMemory = false;
+                        int[] status = { 0 };
+                        long[] cpu = { -1 };
+                        Thread main = new Thread(() -> {
+                            status[0] = invokeMain(mainClass, classDir, err);
+                            cpu[0] = ManagementFactory.getThreadMXBean().getCurrentThreadCpuTime();
+                        }, "main");
+                        main.start();
+                        main.join();
+                        out.flush();
+                        err.flush();
+                        // whatever the program swapped in is gone with it
+                        System.setOut(out);
+                        System.setErr(err);
+                        System.setIn(InputStream.nullInputStream());
+
+                        long peak = 0;
+                        for (MemoryPoolMXBean pool : pools) {
+                            if (pool.getType() == MemoryType.HEAP) peak += pool.getPeakUsage().getUsed();
+                        }
+                        // anything the program left running would carry into the next run
+                        boolean reusable = !outOfMemory && Thread.activeCount() <= threadsBefore;
+                        synchronized (frames) {
+                            frames.writeByte(DONE);
+                            frames.writeInt(status[0]);
+                            frames.writeLong(cpu[0]);
+                            frames.writeLong(peak);
+                            frames.writeBoolean(outOfMemory);
+                            frames.writeBoolean(reusable);
+                            frames.flush();
+                        }
+                    }
+                }
+
+                static void clean(Path home) throws IOException {
+                    try (var files = Files.walk(home)) {
+                        for (Path p : files.sorted(Comparator.reverseOrder()).toList()) {
+                            if (!p.equals(home)) Files.deleteIfExists(p);
+                        }
+                    }
+                }
+
+                static int invokeMain(String mainClass, Path classDir, PrintStream err) {
+                    try (
+                        URLClassLoader loader = new URLClassLoader(
+                            new URL[] { classDir.toUri().toURL() },
+                            ClassLoader.getPlatformClassLoader()
+                        )
+                    ) {
+                        Method main = loader.loadClass(mainClass).getMethod("main", String[].class);
+                        main.setAccessible(true);
+                        main.invoke(null, (Object) new String[0]);
+                        return 0;
+                    } catch (InvocationTargetException e) {
+                        Throwable cause = e.getCause();
+                        if (cause instanceof OutOfMemoryError) outOfMemory = true;
+                        List<StackTraceElement> frames = new ArrayList<>();
+                        for (StackTraceElement frame : cause.getStackTrace()) {
+                            if (frame.getClassName().startsWith("jdk.internal.reflect")) break;
+                            frames.add(frame);
+                        }
+                        cause.setStackTrace(frames.toArray(new StackTraceElement[0]));
+                        err.print("Exception in thread \\"main\\" ");
+                        cause.printStackTrace(err);
+                        return 1;
+                    } catch (ReflectiveOperationException | LinkageError | IOException e) {
+                        err.printf("Error: Could not run main method of class %s%n\t%s%n", mainClass, e);
+                        return 1;
+                    }
+                }
+            }
+            """;
+        private static final int READY = 0, OUT = 1, ERR = 2, DONE = 3;
+        private static final long SAMPLE_INTERVAL_MS = 10;
+        private static final long START_TIMEOUT_MS = 15_000;
+        private static final SecureRandom tokens = new SecureRandom();
+
+        private static final Map<Integer, Deque<Worker>> idle =
+            new ConcurrentHashMap<>();
+        // workers still starting up, per heap size
+        private static final Map<Integer, AtomicInteger> starting =
+            new ConcurrentHashMap<>();
+        private static final AtomicInteger created = new AtomicInteger();
+        private static final ExecutorService spawner =
+            Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "worker-spawner");
+                t.setDaemon(true);
+                return t;
+            });
+        private static Path bootstrap;
+
+        private static class Worker {
+
+            final Process process;
+            final Socket socket;
+            final DataOutputStream requests;
+            final DataInputStream frames;
+            int runs = 0;
+
+            Worker(Process process, Socket socket) throws IOException {
+                this.process = process;
+                this.socket = socket;
+                this.requests = new DataOutputStream(
+                    new BufferedOutputStream(socket.getOutputStream())
+                );
+                this.frames = new DataInputStream(
+                    new BufferedInputStream(socket.getInputStream(), 1 << 16)
+                );
+            }
+
+            void discard() {
+                ProcessMonitor.killTree(process);
+                try {
+                    socket.close();
+                } catch (IOException e) {}
+            }
+
+            // forwards output until the run is over, true if the worker can go again
+            boolean readFrames(OutputStream out, RunResult result) {
+                try {
+                    byte[] buffer = new byte[8192];
+                    while (true) {
+                        int tag = frames.readByte();
+                        if (tag == DONE) {
+                            result.exitCode = frames.readInt();
+                            result.cpuNanos = frames.readLong();
+                            result.peakMemoryBytes = frames.readLong();
+                            if (frames.readBoolean()) result.outOfMemory = true;
+                            return frames.readBoolean();
+                        }
+                        OutputStream target = tag == ERR ? System.err : out;
+                        int len = frames.readInt();
+                        while (len > 0) {
+                            int n = frames.read(
+                                buffer,
+                                0,
+                                Math.min(len, buffer.length)
+                            );
+                            if (n < 0) throw new EOFException();
+                            try {
+                                target.write(buffer, 0, n);
+                            } catch (IOException e) {
+                                // the sink gave up, keep draining the worker
+                            }
+                            len -= n;
+                        }
+                    }
+                } catch (IOException e) {
+                    // the worker died, from System.exit or from being killed
+                    try {
+                        result.exitCode = process.waitFor();
+                    } catch (InterruptedException ie) {
+                        result.exitCode = -1;
+                    }
+                    return false;
+                }
+            }
+        }
+
+        // the compiled Worker, compiled once per version of it and JDK
+        private static synchronized Path bootstrap() throws IOException {
+            if (bootstrap != null) return bootstrap;
+            Path dir = Path.of(
+                CacheDir,
+                "worker",
+                IOUtils.sha256(
+                    SOURCE.getBytes(StandardCharsets.UTF_8),
+                    Runtime.version().toString().getBytes(StandardCharsets.UTF_8)
+                )
+            );
+            if (!Files.exists(dir.resolve("Worker.class"))) {
+                if (!InProcessCompiler.isAvailable()) {
+                    throw new IOException("No compiler for the worker bootstrap");
+                }
+                InProcessCompiler.CompileResult result =
+                    InProcessCompiler.compile("Worker.java", SOURCE);
+                if (!result.success) {
+                    throw new IOException("Unable to compile the worker bootstrap");
+                }
+                Path tmp = dir.resolveSibling(
+                    dir.getFileName() + "." + ProcessHandle.current().pid()
+                );
+                InProcessCompiler.writeClasses(result.classes, tmp);
+                try {
+                    Files.move(tmp, dir, StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException e) {
+                    IOUtils.delete(tmp); // another launch got there first
+                }
+            }
+            bootstrap = dir;
+            return dir;
+        }
+
+        // starts a worker and waits for it to connect and say it's ready
+        private static Worker spawn(int heapMb) throws IOException {
+            String name = String.format("worker-%03d", created.incrementAndGet());
+            Path dir = Path.of(CompetitionExecutionDir, name);
+            Path log = Path.of(CompetitionExecutionDir, name + ".log");
+            IOUtils.createDirIfAbsent(dir);
+            byte[] secret = new byte[16];
+            tokens.nextBytes(secret);
+            String token = HexFormat.of().formatHex(secret);
+
+            try (
+                ServerSocket server = new ServerSocket(
+                    0,
+                    1,
+                    InetAddress.getLoopbackAddress()
+                )
+            ) {
+                Process process = new ProcessBuilder(
+                    ForkProfile.command(
+                        heapMb,
+                        "-cp",
+                        bootstrap().toString(),
+                        "Worker",
+                        String.valueOf(server.getLocalPort())
+                    )
+                )
+                    .directory(dir.toFile())
+                    .redirectErrorStream(true)
+                    .redirectOutput(Redirect.appendTo(log.toFile()))
+                    .start();
+                try (OutputStream stdin = process.getOutputStream()) {
+                    stdin.write((token + "\n").getBytes(StandardCharsets.UTF_8));
+                }
+
+                long deadline = System.nanoTime() + START_TIMEOUT_MS * 1_000_000;
+                server.setSoTimeout(250);
+                while (process.isAlive() && System.nanoTime() < deadline) {
+                    Socket socket;
+                    try {
+                        socket = server.accept();
+                    } catch (SocketTimeoutException e) {
+                        continue;
+                    }
+                    // anything else that found the port doesn't know the token
+                    try {
+                        socket.setSoTimeout((int) START_TIMEOUT_MS);
+                        socket.setTcpNoDelay(true);
+                        Worker worker = new Worker(process, socket);
+                        if (
+                            worker.frames.readUTF().equals(token) &&
+                            worker.frames.read() == READY
+                        ) {
+                            socket.setSoTimeout(0);
+                            return worker;
+                        }
+                    } catch (IOException e) {}
+                    socket.close();
+                }
+                process.destroyForcibly();
+                throw new IOException(
+                    "The worker JVM didn't start" + describeLog(log)
+                );
+            }
+        }
+
+        // the end of a worker's log, which is where a JVM says why it won't start
+        private static String describeLog(Path log) {
+            try {
+                List<String> lines = Files.readAllLines(log);
+                if (lines.isEmpty()) return ".";
+                return String.format(
+                    ", see %s:\n\t%s",
+                    log,
+                    String.join(
+                        "\n\t",
+                        lines.subList(Math.max(0, lines.size() - 5), lines.size())
+                    )
+                );
+            } catch (IOException e) {
+                return ".";
+            }
+        }
+
+        // tops the pool for this heap size back up in the background
+        public static void replenish(int heapMb) {
+            Deque<Worker> workers = idle.computeIfAbsent(heapMb, k ->
+                new ConcurrentLinkedDeque<>()
+            );
+            AtomicInteger pending = starting.computeIfAbsent(heapMb, k ->
+                new AtomicInteger()
+            );
+            while (workers.size() + pending.get() < WORKER_POOL_SIZE) {
+                pending.incrementAndGet();
+                spawner.execute(() -> {
+                    try {
+                        workers.addLast(spawn(heapMb));
+                    } catch (IOException e) {
+                        // the next run starts one itself, or falls back to forking
+                    } finally {
+                        pending.decrementAndGet();
+                    }
+                });
+            }
+        }
+
+        private static Worker acquire(int heapMb) throws IOException {
+            Deque<Worker> workers = idle.get(heapMb);
+            Worker worker;
+            while (workers != null && (worker = workers.pollFirst()) != null) {
+                if (worker.process.isAlive()) {
+                    replenish(heapMb);
+                    return worker;
+                }
+                worker.discard();
+            }
+            replenish(heapMb);
+            return spawn(heapMb);
+        }
+
+        // Runs the program compiled into sandbox in a worker, or returns null if no
+        // worker could be started. Its output goes to sink (the console if null).
+        public static RunResult run(
+            String mainClass,
+            Sandbox sandbox,
+            Path dataFile,
+            OutputStream sink,
+            long timeLimitMillis,
+            int memoryLimitMb,
+            BooleanSupplier shouldStop
+        ) throws InterruptedException {
+            Worker worker = null;
+            try {
+                worker = acquire(memoryLimitMb);
+                worker.requests.writeUTF(mainClass);
+                worker.requests.writeUTF(sandbox.dir.toAbsolutePath().toString());
+                worker.requests.writeUTF(
+                    dataFile == null ? "" : dataFile.toAbsolutePath().toString()
+                );
+                worker.requests.flush();
+            } catch (IOException e) {
+                if (worker != null) worker.discard();
+                System.out.printf(
+                    "Running in a fresh JVM instead. %s\n",
+                    e.getMessage()
+                );
+                return null;
+            }
+
+            RunResult result = new RunResult();
+            OutputStream out = sink != null ? sink : System.out;
+            boolean[] reusable = { false };
+            Worker running = worker;
+            Thread reader = new Thread(
+                () -> reusable[0] = running.readFrames(out, result),
+                "worker-output"
+            );
+            reader.setDaemon(true);
+
+            long start = System.nanoTime();
+            reader.start();
+            while (reader.isAlive()) {
+                reader.join(SAMPLE_INTERVAL_MS);
+                if (!reader.isAlive()) break;
+                if (shouldStop.getAsBoolean()) {
+                    result.cancelled = true;
+                    ProcessMonitor.killTree(worker.process);
+                    break;
+                }
+                if (System.nanoTime() - start > timeLimitMillis * 1_000_000) {
+                    result.timedOut = true;
+                    ProcessMonitor.killTree(worker.process);
+                    break;
+                }
+            }
+            reader.join();
+            result.wallNanos = System.nanoTime() - start;
+            if (sink == null) System.out.flush();
+
+            if (reusable[0] && ++worker.runs < WORKER_MAX_RUNS) {
+                idle.get(memoryLimitMb).addFirst(worker);
+            } else {
+                worker.discard();
+                replenish(memoryLimitMb);
+            }
+            return result;
+        }
+    }
+
+    // Where the time in run/check/judge goes. Every phase is timed with
+    // System.nanoTime into a small histogram per problem; the stats command shows
+    // percentiles from them and dumpAtExit writes the buckets themselves out when
+    // the launcher stops. Phases don't overlap, so together they account for
+    // (nearly) all of a judge.
+    public static class Timings {
+
+        public enum Phase {
+            // waiting for the problem's files to come out of the zip
+            PREPARE("prepare"),
+            COMPILE("compile"),
+            // the data file into the sandbox
+            COPY_DATA("copy data"),
+            // what it takes to get the program going: a worker from the pool, or
+            // a JVM for forked runs
+            START("start"),
+            // the program itself, which streaming judging compares alongside
+            RUN("run"),
+            READ_OUTPUT("read output"),
+            COMPARE("compare"),
+            // emptying the sandbox afterwards, on the reclaimer thread
+            CLEANUP("cleanup");
+
+            private final String canonicalName;
+
+            Phase(String name) {
+                this.canonicalName = name;
+            }
+
+            @Override
+            public String toString() {
+                return canonicalName;
+            }
+        }
+
+        // Counts durations in buckets four to a power of two, so a percentile is
+        // never more than a quarter over the real value and a histogram is 2 KB.
+        public static class Histogram {
+
+            private final long[] counts = new long[256];
+            private long count, total, max;
+
+            private static int bucket(long nanos) {
+                if (nanos < 8) return (int) Math.max(0, nanos);
+                int log = 63 - Long.numberOfLeadingZeros(nanos);
+                return log * 4 + ((int) (nanos >>> (log - 2)) & 3);
+            }
+
+            // the largest duration that lands in the bucket
+            private static long upperBound(int bucket) {
+                if (bucket < 8) return bucket;
+                return ((5L + bucket % 4) << (bucket / 4 - 2)) - 1;
+            }
+
+            public synchronized void record(long nanos) {
+                counts[bucket(nanos)]++;
+                count++;
+                total += nanos;
+                max = Math.max(max, nanos);
+            }
+
+            public synchronized void add(Histogram other) {
+                synchronized (other) {
+                    for (int i = 0; i < counts.length; i++) {
+                        counts[i] += other.counts[i];
+                    }
+                    count += other.count;
+                    total += other.total;
+                    max = Math.max(max, other.max);
+                }
+            }
+
+            public synchronized long getCount() {
+                return count;
+            }
+
+            public synchronized long getTotal() {
+                return total;
+            }
+
+            public synchronized long getMax() {
+                return max;
+            }
+
+            public synchronized long percentile(double p) {
+                long rank = Math.max(1, (long) Math.ceil(p * count));
+                long seen = 0;
+                for (int i = 0; i < counts.length; i++) {
+                    seen += counts[i];
+                    if (seen >= rank) return Math.min(upperBound(i), max);
+                }
+                return max;
+            }
+
+            // "<upper bound>:<count>" for every bucket that has anything in it
+            public synchronized String buckets() {
+                List<String> parts = new ArrayList<>();
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] > 0) parts.add(upperBound(i) + ":" + counts[i]);
+                }
+                return String.join(" ", parts);
+            }
+        }
+
+        // problem name -> one histogram per phase
+        private static final Map<String, Histogram[]> histograms =
+            new ConcurrentHashMap<>();
+        private static Path dumpFile = null;
+
+        public static void record(String problem, Phase phase, long nanos) {
+            if (problem == null) return;
+            histograms.computeIfAbsent(problem, k -> {
+                Histogram[] h = new Histogram[Phase.values().length];
+                for (int i = 0; i < h.length; i++) h[i] = new Histogram();
+                return h;
+            })[phase.ordinal()].record(nanos);
+        }
+
+        // records the time since start and returns now, for back to back phases
+        public static long lap(String problem, Phase phase, long start) {
+            long now = System.nanoTime();
+            record(problem, phase, now - start);
+            return now;
+        }
+
+        public static void reset() {
+            histograms.clear();
+        }
+
+        // every problem's histograms added together, per phase
+        private static Histogram[] overall() {
+            Histogram[] all = new Histogram[Phase.values().length];
+            for (int i = 0; i < all.length; i++) all[i] = new Histogram();
+            for (Histogram[] h : histograms.values()) {
+                for (int i = 0; i < all.length; i++) all[i].add(h[i]);
+            }
+            return all;
+        }
+
+        // all problems (and then each one) when problem is null, otherwise just it
+        private static Map<String, Histogram[]> scopes(String problem) {
+            Map<String, Histogram[]> scopes = new LinkedHashMap<>();
+            if (problem == null) {
+                scopes.put("All problems", overall());
+                scopes.putAll(new TreeMap<>(histograms));
+            } else if (histograms.containsKey(problem)) {
+                scopes.put(problem, histograms.get(problem));
+            }
+            return scopes;
+        }
+
+        public static String describe(String problem) {
+            Map<String, Histogram[]> scopes = scopes(problem);
+            if (scopes.isEmpty() || histograms.isEmpty()) {
+                return "No timings yet, run, check or judge something first.";
+            }
+            StringBuilder sb = new StringBuilder(
+                "Time per phase (percentiles are at most a quarter high):\n"
+            );
+            scopes.forEach((scope, h) -> {
+                sb.append(
+                    String.format(
+                        "%s\n  %-12s %6s %10s %10s %10s %10s\n",
+                        scope,
+                        "phase",
+                        "n",
+                        "p50",
+                        "p95",
+                        "max",
+                        "total"
+                    )
+                );
+                for (Phase phase : Phase.values()) {
+                    Histogram p = h[phase.ordinal()];
+                    if (p.getCount() == 0) continue;
+                    sb.append(
+                        String.format(
+                            "  %-12s %6d %10s %10s %10s %10s\n",
+                            phase,
+                            p.getCount(),
+                            formatNanos(p.percentile(0.50)),
+                            formatNanos(p.percentile(0.95)),
+                            formatNanos(p.getMax()),
+                            formatNanos(p.getTotal())
+                        )
+                    );
+                }
+            });
+            return sb.toString().stripTrailing();
+        }
+
+        // tab separated, one line per problem and phase, times in nanoseconds
+        public static void dump(Path file) throws IOException {
+            List<String> lines = new ArrayList<>();
+            lines.add("# " + CompetitionID);
+            lines.add("# problem\tphase\tn\tp50\tp95\tmax\ttotal\tbuckets");
+            scopes(null).forEach((scope, h) -> {
+                for (Phase phase : Phase.values()) {
+                    Histogram p = h[phase.ordinal()];
+                    if (p.getCount() == 0) continue;
+                    lines.add(
+                        String.join(
+                            "\t",
+                            scope,
+                            phase.toString(),
+                            "" + p.getCount(),
+                            "" + p.percentile(0.50),
+                            "" + p.percentile(0.95),
+                            "" + p.getMax(),
+                            "" + p.getTotal(),
+                            p.buckets()
+                        )
+                    );
+                }
+            });
+            Files.write(file, lines);
+        }
+
+        // writes the histograms next to where the launcher was started from when
+        // it exits, however that happens; returns where they'll go
+        public static synchronized Path dumpAtExit() {
+            if (dumpFile != null) return dumpFile;
+            dumpFile = Path.of(CurrentDir, CompetitionID + "-timings.txt");
+            Path file = dumpFile;
+            Runtime.getRuntime().addShutdownHook(
+                new Thread(
+                    () -> {
+                        if (histograms.isEmpty()) return;
+                        try {
+                            dump(file);
+                        } catch (IOException e) {
+                            System.out.println("Unable to save timings to " + file);
+                        }
+                    },
+                    "timings-dump"
+                )
+            );
+            return dumpFile;
+        }
+    }
+
+    public static class Problem {
+
+        private final String name;
+        private final String judgeDataPath, correctCodePath, judgeOutPath;
+        private int numTries = 0;
+        private boolean accepted = false;
+        private String studentDataPath;
+        private Verdict lastVerdict = Verdict.NOT_ATTEMPTED;
+        // how the last judge or check ran, null if it never got to running
+        private RunResult lastRun;
+        private volatile CompletableFuture<Void> preparing =
+            CompletableFuture.completedFuture(null);
+        private long timeLimitMillis = DEFAULT_TIME_LIMIT_MS;
+        private int memoryLimitMb = DEFAULT_MEMORY_LIMIT_MB;
+
+        @Override
+        public String toString() {
+            return String.format(
+                "%10s [Accepted=%b, Attemps=%2d, Points Awarded=%2d]\n",
+                name,
+                accepted,
+                numTries,
+                getScore(),
+                IOUtils.getFileName(judgeDataPath),
+                IOUtils.getFileName(judgeOutPath),
+                IOUtils.getFileName(studentDataPath)
+            );
+        }
+
+        public String toStringDetailed() {
+            return String.format(
+                "%s [Accepted=%b, Attemps=%2d, Points Awarded=%2d]\n\tJudge Data File: %s\n\tJudge Output: %s\n\tStudent Data File:%s\n",
+                name,
+                accepted,
+                numTries,
+                getScore(),
+                IOUtils.getFileName(judgeDataPath),
+                IOUtils.getFileName(judgeOutPath),
+                IOUtils.getFileName(studentDataPath)
+            );
+        }
+
+        public Problem(String n, String jdp, String sop, String ccp) {
+            name = n;
+            judgeDataPath = jdp;
+            judgeOutPath = sop;
+            correctCodePath = ccp;
+        }
+
+        // the same files and limits without any of the attempts, so the problem
+        // can be graded for several students at once
+        public Problem freshCopy() {
+            Problem p = new Problem(
+                name,
+                judgeDataPath,
+                judgeOutPath,
+                correctCodePath
+            );
+            p.studentDataPath = studentDataPath;
+            p.timeLimitMillis = timeLimitMillis;
+            p.memoryLimitMb = memoryLimitMb;
+            p.preparing = preparing;
+            return p;
+        }
+
+        public String getStudentDataPath() {
+            return studentDataPath;
+        }
+
+        // with LAZY_EXTRACTION the files only come out of the zip on first use
+        public void materialize() {
+            extractFiles().forEach(System.out::println);
+        }
+
+        private List<String> extractFiles() {
+            return LazyContest.materialize(
+                judgeDataPath,
+                judgeOutPath,
+                correctCodePath,
+                studentDataPath
+            );
+        }
+
+        // extracts the files and compiles the judge's solution off the main thread,
+        // so the prompt can come up before every problem is ready. Nothing here
+        // prints over the prompt: a file that fails to extract is tried (and
+        // reported) again by materialize when the problem is used.
+        public void prepareAsync(Executor executor) {
+            preparing = CompletableFuture.runAsync(
+                () -> {
+                    extractFiles();
+                    precompileReference();
+                },
+                executor
+            );
+        }
+
+        public boolean isPrepared() {
+            return preparing.isDone();
+        }
+
+        // only check needs the judge's solution compiled, everything else just
+        // needs the files (which materialize waits for on its own)
+        private void awaitPrepared() {
+            if (!preparing.isDone()) {
+                System.out.printf("Waiting for %s to finish preparing...\n", name);
+            }
+            try {
+                preparing.join();
+            } catch (CompletionException | CancellationException e) {
+                // then it'll just be compiled when it's needed
+            }
+            materialize();
+        }
+
+        private void precompileReference() {
+            if (!InProcessCompiler.isAvailable()) return;
+            try {
+                Path sourcePath = Path.of(correctCodePath);
+                String fileName = sourcePath.getFileName().toString();
+                byte[] source = Files.readAllBytes(sourcePath);
+                String cacheKey = CompileCache.key(fileName, source);
+                if (CompileCache.contains(cacheKey)) return;
+                InProcessCompiler.CompileResult result =
+                    InProcessCompiler.compile(fileName, source);
+                if (result.success) CompileCache.put(cacheKey, result.classes);
+            } catch (IOException e) {
+                // compiled (and reported) when check gets to it instead
+            }
+        }
+
+        public void setStudentDataPath(String sdp) {
+            studentDataPath = sdp;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getScore() {
+            return accepted
+                ? PROBLEM_TOTAL_SCORE - (numTries - 1) * ATTEMPT_PENALTY
+                : 0;
+        }
+
+        public boolean isAccepted() {
+            return accepted;
+        }
+
+        public int getNumberTries() {
+            return numTries;
+        }
+
+        public RunResult getLastRun() {
+            return lastRun;
+        }
+
+        public Verdict getLastVerdict() {
+            return lastVerdict;
+        }
+
+        public long getTimeLimitMillis() {
+            return timeLimitMillis;
+        }
+
+        public int getMemoryLimitMb() {
+            return memoryLimitMb;
+        }
+
+        public void setLimits(long timeLimitMillis, int memoryLimitMb) {
+            if (timeLimitMillis <= 0 || memoryLimitMb <= 0) {
+                throw new IllegalArgumentException("Limits must be positive");
+            }
+            this.timeLimitMillis = timeLimitMillis;
+            this.memoryLimitMb = memoryLimitMb;
+        }
+
+        private String centerString(String s, int width) {
+            return String.format(
+                "%s%s%s",
+                " ".repeat((width - s.length()) / 2),
+                s,
+                " ".repeat((width - s.length() + 1) / 2)
+            );
+        }
+
+        public void run(String studentCodePath) {
+            long start = System.nanoTime();
+            materialize();
+            Timings.lap(name, Timings.Phase.PREPARE, start);
+            try (Sandbox sandbox = SandboxPool.acquire()) {
+                System.out.printf(
+                    "========== Compiling %s ==========\n",
+                    centerString(getName(), 10)
+                );
+                int status = compileStudentCode(sandbox, studentCodePath, false);
+                if (status != 0) {
+                    System.out.println("Failed to compile");
+                    return;
+                }
+                System.out.printf(
+                    "========== Running   %s ==========\n",
+                    centerString(getName(), 10)
+                );
+                RunResult result = executeStudentCode(
+                    sandbox,
+                    studentDataPath,
+                    false
+                );
+                Verdict failure = result.failure();
+                System.out.printf(
+                    "========== %s (%s) ==========\n",
+                    failure != null ? failure : "Finished",
+                    result
+                );
+            }
+        }
+
+        // the sins of the father pass down to the son
+        // (IOUtils.readLines shouldn't have ever existed)
+        public boolean check(String studentCodePath) {
+            long start = System.nanoTime();
+            awaitPrepared();
+            Timings.lap(name, Timings.Phase.PREPARE, start);
+            lastRun = null;
+            List<String> studentOutputLines;
+            try (Sandbox sandbox = SandboxPool.acquire()) {
+                System.out.printf(
+                    "========== Compiling %s ==========\n",
+                    centerString(getName(), 10)
+                );
+                int status = compileStudentCode(sandbox, studentCodePath, false);
+                if (status != 0) {
+                    System.out.println("Failed to compile.");
+                    lastVerdict = Verdict.COMPILE_ERROR;
+                    return false;
+                }
+
+                RunResult result = executeStudentCode(
+                    sandbox,
+                    studentDataPath,
+                    true
+                );
+                lastRun = result;
+                System.out.printf("Run complete (%s).\n", result);
+                if (result.failure() != null) {
+                    lastVerdict = result.failure();
+                    return false;
+                }
+                long read = System.nanoTime();
+                studentOutputLines = IOUtils.readLines(result.output);
+                Timings.lap(name, Timings.Phase.READ_OUTPUT, read);
+            }
+
+            List<String> correctOutputLines = referenceOutput();
+            if (correctOutputLines == null) {
+                // not the student's fault, so it doesn't count as a verdict
+                lastVerdict = Verdict.NOT_ATTEMPTED;
+                return false;
+            }
+            long compare = System.nanoTime();
+            boolean isCorrect = isCorrectOutput(
+                correctOutputLines,
+                studentOutputLines
+            );
+            if (!isCorrect) {
+                String report = LineDiff.firstDivergence(
+                    correctOutputLines,
+                    studentOutputLines,
+                    0
+                );
+                if (report != null) System.out.print(report);
+            }
+            Timings.lap(name, Timings.Phase.COMPARE, compare);
+            lastVerdict = isCorrect ? Verdict.ACCEPTED : Verdict.WRONG_ANSWER;
+            return isCorrect;
+        }
+
+        // runs the judge's solution now, so later checks find its output cached
+        public void prepareReferenceOutput() {
+            awaitPrepared();
+            referenceOutput();
+        }
+
+        // what the judge's solution prints for the student data file, or null (after
+        // saying why) if it doesn't compile or run cleanly
+        private List<String> referenceOutput() {
+            long start = System.nanoTime();
+            String key = null;
+            try {
+                key = ReferenceOutputCache.key(
+                    name,
+                    correctCodePath,
+                    studentDataPath
+                );
+                List<String> cached = ReferenceOutputCache.get(key);
+                if (cached != null) {
+                    Timings.lap(name, Timings.Phase.READ_OUTPUT, start);
+                    return cached;
+                }
+            } catch (IOException e) {
+                // can't hash the inputs, so just don't cache
+            }
+
+            List<String> correctOutputLines;
+            try (Sandbox sandbox = SandboxPool.acquire()) {
+                if (compileStudentCode(sandbox, correctCodePath, true) != 0) {
+                    System.out.printf(
+                        "The judge's solution for %s failed to compile.\n",
+                        name
+                    );
+                    return null;
+                }
+                RunResult result = executeStudentCode(
+                    sandbox,
+                    studentDataPath,
+                    true
+                );
+                if (result.failure() != null || result.output == null) {
+                    System.out.printf(
+                        "The judge's solution for %s failed (%s).\n",
+                        name,
+                        nullish(result.failure(), Verdict.RUNTIME_ERROR)
+                    );
+                    return null;
+                }
+                long read = System.nanoTime();
+                correctOutputLines = IOUtils.readLines(result.output);
+                Timings.lap(name, Timings.Phase.READ_OUTPUT, read);
+            }
+
+            if (key != null) {
+                ReferenceOutputCache.put(key, correctOutputLines);
+            }
+            return correctOutputLines;
+        }
+
+        public int compileStudentCode(
+            Sandbox sandbox,
+            String studentCodePath,
+            boolean isJudge
+        ) {
+            long start = System.nanoTime();
+            sandbox.classes = null;
+            sandbox.problem = name;
+            try {
+                Path sourcePath = Path.of(studentCodePath);
+                String fileName = sourcePath.getFileName().toString();
+                byte[] source = Files.readAllBytes(sourcePath);
+                String cacheKey = CompileCache.key(fileName, source);
+                Map<String, byte[]> classes = CompileCache.get(cacheKey);
+
+                if (classes == null && InProcessCompiler.isAvailable()) {
+                    InProcessCompiler.CompileResult result =
+                        InProcessCompiler.compile(fileName, source);
+                    // javac always printed its diagnostics, judge or not
+                    result.diagnostics.forEach(d -> System.out.println(d));
+                    if (!result.success) {
+                        long errors = result.errorCount();
+                        System.out.printf(
+                            "%d error%s\n",
+                            errors,
+                            errors == 1 ? "" : "s"
+                        );
+                        return 1;
+                    }
+                    classes = result.classes;
+                    CompileCache.put(cacheKey, classes);
+                } else if (classes == null) {
+                    int status = compileWithJavac(sandbox, studentCodePath);
+                    if (status != 0) return status;
+                    classes = IOUtils.readClassFiles(sandbox.dir);
+                    CompileCache.put(cacheKey, classes);
+                }
+
+                sandbox.classes = classes;
+                InProcessCompiler.writeClasses(classes, sandbox.dir);
+                return 0;
+            } catch (IOException e) {
+                return -1;
+            } finally {
+                Timings.lap(name, Timings.Phase.COMPILE, start);
+            }
+        }
+
+        // fallback for JREs without the jdk.compiler module
+        private int compileWithJavac(Sandbox sandbox, String studentCodePath) {
+            try {
+                String fileName = Path.of(studentCodePath)
+                    .getFileName()
+                    .toString();
+                Path destination = sandbox.dir.resolve(fileName);
+                Files.deleteIfExists(destination);
+                Files.copy(Path.of(studentCodePath), destination);
+                List<String> command = new ArrayList<>();
+                command.add("javac");
+                command.addAll(ForkProfile.javacFlags());
+                command.add(fileName);
+                // through System.out rather than inherited, so the diagnostics end
+                // up wherever this thread's output goes (a grading log, say)
+                Process process = new ProcessBuilder(command)
+                    .directory(sandbox.dir.toFile())
+                    .redirectErrorStream(true)
+                    .start();
+                process.getOutputStream().close();
+                try (InputStream output = process.getInputStream()) {
+                    output.transferTo(System.out);
+                }
+                System.out.flush();
+                return process.waitFor();
+            } catch (IOException | InterruptedException e) {
+                return -1;
+            }
+        }
+
+        // Writes the program's output to a file in the sandbox when captureOutput is
+        // set, otherwise it goes straight to the console. The sandbox has to have
+        // been compiled into first.
+        public RunResult executeStudentCode(
+            Sandbox sandbox,
+            String dataPath,
+            boolean captureOutput
+        ) {
+            File studentOutputFile = captureOutput
+                ? sandbox.dir.resolve(name + ".student-output").toFile()
+                : null;
+            try (
+                OutputStream out = captureOutput
+                    ? new BufferedOutputStream(
+                        new FileOutputStream(studentOutputFile)
+                    )
+                    : null
+            ) {
+                RunResult result = executeStudentCode(
+                    sandbox,
+                    dataPath,
+                    out,
+                    () -> false
+                );
+                result.output = studentOutputFile;
+                return result;
+            } catch (IOException e) {
+                RunResult result = new RunResult();
+                result.exitCode = -1;
+                return result;
+            }
+        }
+
+        // Sends the program's output to sink (the console if null) as it is printed.
+        // The program is killed as soon as shouldStop returns true.
+        public RunResult executeStudentCode(
+            Sandbox sandbox,
+            String dataPath,
+            OutputStream sink,
+            BooleanSupplier shouldStop
+        ) {
+            try {
+                long start = System.nanoTime();
+                Path dataFile = null;
+                if (dataPath != null) {
+                    dataFile = sandbox.dir.resolve(
+                        String.format("%s.dat", name.toLowerCase())
+                    );
+                    Files.copy(
+                        Path.of(dataPath),
+                        dataFile,
+                        StandardCopyOption.REPLACE_EXISTING
+                    );
+                    start = Timings.lap(name, Timings.Phase.COPY_DATA, start);
+                }
+
+                RunResult result = execute(sandbox, dataFile, sink, shouldStop);
+                // the runners time the program alone, the rest is getting it going
+                Timings.record(name, Timings.Phase.RUN, result.wallNanos);
+                Timings.record(
+                    name,
+                    Timings.Phase.START,
+                    Math.max(0, System.nanoTime() - start - result.wallNanos)
+                );
+                return result;
+            } catch (IOException | InterruptedException e) {
+                RunResult result = new RunResult();
+                result.exitCode = -1;
+                return result;
+            }
+        }
+
+        // The time and memory limits can only be enforced on a JVM of the program's
+        // own, so every run gets a worker, and only gets a fresh JVM when no worker
+        // can be had.
+        private RunResult execute(
+            Sandbox sandbox,
+            Path dataFile,
+            OutputStream sink,
+            BooleanSupplier shouldStop
+        ) throws IOException, InterruptedException {
+            if (WORKER_POOL_SIZE > 0 && sandbox.classes != null) {
+                RunResult result = WorkerPool.run(
+                    name,
+                    sandbox,
+                    dataFile,
+                    sink,
+                    timeLimitMillis,
+                    memoryLimitMb,
+                    shouldStop
+                );
+                if (result != null) return result;
+            }
+            return executeForked(sandbox, sink, shouldStop);
+        }
+
+        private RunResult executeForked(
+            Sandbox sandbox,
+            OutputStream sink,
+            BooleanSupplier shouldStop
+        ) throws IOException, InterruptedException {
+            ProcessBuilder pb = new ProcessBuilder(
+                ForkProfile.command(memoryLimitMb, name)
+            ).directory(sandbox.dir.toFile());
+            if (sink == null) {
+                pb.redirectOutput(Redirect.INHERIT);
+            }
+            Process process = pb.start();
+            process.getOutputStream().close(); // nothing to read from stdin
+
+            Thread pump = null;
+            if (sink != null) {
+                pump = new Thread(
+                    () -> {
+                        try (InputStream stdout = process.getInputStream()) {
+                            stdout.transferTo(sink);
+                        } catch (IOException e) {
+                            // the process was killed mid-write
+                        }
+                    },
+                    "student-stdout"
+                );
+                pump.setDaemon(true);
+                pump.start();
+            }
+            RunResult result = ProcessMonitor.watch(
+                process,
+                timeLimitMillis,
+                shouldStop
+            );
+            if (pump != null) pump.join();
+            return result;
+        }
+
+        public boolean judge(String studentCodePath) {
+            if (accepted) return true;
+            long start = System.nanoTime();
+            materialize();
+            Timings.lap(name, Timings.Phase.PREPARE, start);
+
+            numTries++;
+            lastRun = null;
+            Verdict verdict;
+            try (Sandbox sandbox = SandboxPool.acquire()) {
+                System.out.println("Compiling...");
+                int statusCode = compileStudentCode(
+                    sandbox,
+                    studentCodePath,
+                    true
+                );
+                if (statusCode != 0) {
+                    System.out.println("Failed to compile.");
+                    lastVerdict = Verdict.COMPILE_ERROR;
+                    return false;
+                }
+                System.out.println("Running...");
+                verdict = USE_DIFF_JUDGING
+                    ? judgeWholeOutput(sandbox)
+                    : judgeStreaming(sandbox);
+            }
+            lastVerdict = verdict;
+            accepted = verdict == Verdict.ACCEPTED;
+            return accepted;
+        }
+
+        // compare as the output comes in, a wrong line ends the run early
+        private Verdict judgeStreaming(Sandbox sandbox) {
+            try (StreamingJudge output = new StreamingJudge(judgeOutPath)) {
+                RunResult result = executeStudentCode(
+                    sandbox,
+                    judgeDataPath,
+                    output,
+                    output::shouldStop
+                );
+                lastRun = result;
+                System.out.printf("Run complete (%s).\n", result);
+                // the rest of the expected output, the run compared the start
+                long compare = System.nanoTime();
+                Verdict verdict = Verdict.ACCEPTED;
+                if (!output.hasMismatch() && result.failure() != null) {
+                    verdict = result.failure();
+                } else if (output.hasMismatch() || !output.isCorrect()) {
+                    String report = output.report();
+                    if (report != null) System.out.print(report);
+                    verdict = Verdict.WRONG_ANSWER;
+                }
+                Timings.lap(name, Timings.Phase.COMPARE, compare);
+                return verdict;
+            } catch (IOException e) {
+                System.out.println("Unable to read judge output file.");
+                return Verdict.WRONG_ANSWER;
+            }
+        }
+
+        // lining outputs up needs all of them, so there's no early stop here
+        private Verdict judgeWholeOutput(Sandbox sandbox) {
+            RunResult result = executeStudentCode(sandbox, judgeDataPath, true);
+            lastRun = result;
+            System.out.printf("Run complete (%s).\n", result);
+            if (result.failure() != null) return result.failure();
+            long start = System.nanoTime();
+            boolean same = false;
+            try {
+                // matching output needs no lining up whatever the judging mode
+                same = MappedLines.isSameOutput(
+                    Path.of(judgeOutPath),
+                    result.output.toPath()
+                );
+            } catch (IOException e) {
+                // fall through to the line by line comparison
+            }
+            if (same) {
+                Timings.lap(name, Timings.Phase.COMPARE, start);
+                return Verdict.ACCEPTED;
+            }
+            long compared = System.nanoTime() - start;
+
+            long read = System.nanoTime();
+            List<String> correctOutputLines = IOUtils.readLines(
+                new File(judgeOutPath)
+            );
+            List<String> studentOutputLines = IOUtils.readLines(result.output);
+            long compare = Timings.lap(name, Timings.Phase.READ_OUTPUT, read);
+            boolean isCorrect = isCorrectOutput(
+                correctOutputLines,
+                studentOutputLines
+            );
+            if (!isCorrect) {
+                String report = LineDiff.firstDivergence(
+                    correctOutputLines,
+                    studentOutputLines,
+                    0
+                );
+                if (report != null) System.out.print(report);
+            }
+            Timings.record(
+                name,
+                Timings.Phase.COMPARE,
+                compared + System.nanoTime() - compare
+            );
+            return isCorrect ? Verdict.ACCEPTED : Verdict.WRONG_ANSWER;
+        }
+
+        private boolean isCorrectOutput(
+            List<String> correctOutput,
+            List<String> studentOutput
+        ) {
+            if (USE_DIFF_JUDGING) {
+                return (
+                    LineDiff.distance(
+                        correctOutput,
+                        studentOutput,
+                        MAX_LEVENSHTEIN_DISTANCE
+                    ) <=
+                    MAX_LEVENSHTEIN_DISTANCE
+                );
+            }
+            BufferedReader correct = new BufferedReader(
+                new StringReader(String.join("\n", correctOutput))
+            );
+            BufferedReader student = new BufferedReader(
+                new StringReader(String.join("\n", studentOutput))
+            );
+            if (USE_LEVENSHTEIN_JUDGING) {
+                return diffOutput(correct, student) <= MAX_LEVENSHTEIN_DISTANCE;
+            }
+
+            // fallback to simple .equals approach
+            return isSameOutput(correct, student);
+        }
+
+        // The end-of-output rule every judge path shares (isSameOutput, diffOutput,
+        // MappedLines.isSameOutput and StreamingJudge): once one side runs out, whatever
+        // is left on the other may only be blank lines, however many.
+        // line is the last one read from reader, null if it was already at the end.
+        private static boolean isOutputOver(String line, BufferedReader reader)
+            throws IOException {
+            while (line != null && line.isBlank()) line = reader.readLine();
+            return line == null;
+        }
+
+        @SuppressWarnings("ConvertToTryWithResources")
+        public boolean isSameOutput(
+            BufferedReader correctReader,
+            BufferedReader studentReader
+        ) {
+            try {
+                String c = correctReader.readLine();
+                String s = studentReader.readLine();
+
+                while (c != null && s != null) {
+                    if (!s.trim().equals(c.trim())) {
+                        // System.out.printf("Mismatch:\n\tExpected: %s\n\tGot: %s\n", c, s);
+                        correctReader.close();
+                        studentReader.close();
+                        return false;
+                    }
+                    s = studentReader.readLine();
+                    c = correctReader.readLine();
+                }
+
+                boolean over =
+                    isOutputOver(c, correctReader) &&
+                    isOutputOver(s, studentReader);
+                correctReader.close();
+                studentReader.close();
+                return over;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        @SuppressWarnings("ConvertToTryWithResources")
+        private int diffOutput(
+            BufferedReader correctReader,
+            BufferedReader studentReader
+        ) {
+            try {
+                int distance = 0;
+                String c = correctReader.readLine();
+                String s = studentReader.readLine();
+
+                while (c != null && s != null) {
+                    distance += levenshtein(
+                        c.trim(),
+                        s.trim(),
+                        MAX_LEVENSHTEIN_DISTANCE - distance
+                    );
+                    if (distance > MAX_LEVENSHTEIN_DISTANCE) {
+                        // already over budget, no point reading the rest
+                        correctReader.close();
+                        studentReader.close();
+                        return distance;
+                    }
+                    s = studentReader.readLine();
+                    c = correctReader.readLine();
+                }
+                // if one side still has more than blank lines left, it did not finish, so
+                // completely wrong output
+                boolean over =
+                    isOutputOver(c, correctReader) &&
+                    isOutputOver(s, studentReader);
+                correctReader.close();
+                studentReader.close();
+                if (!over) return Integer.MAX_VALUE;
+
+                return distance;
+            } catch (IOException e) {
+                return Integer.MAX_VALUE; // failed to read,
+            }
+        }
+
+        // Compares a program's output against the judge's .out file while it is being
+        // printed, line by line, using the same rules as isSameOutput/diffOutput.
+        // Lines are compared as bytes against the mapped .out file and only decoded
+        // when they differ. hasMismatch turns true at the first line that settles a
+        // wrong answer, which is when the program should be stopped. The lines from
+        // the first difference on are kept (up to a point) so report can line them
+        // up against the .out file afterwards.
+        private static class StreamingJudge extends OutputStream {
+
+            private static final int CONTEXT_LINES = 2;
+            private static final int WINDOW_LINES = 200;
+            // how far past what the program printed the report reads the .out file
+            private static final int LOOKAHEAD_LINES = 50;
+
+            private final String judgeOutPath;
+            private final MappedLines expected;
+            private byte[] line = new byte[256];
+            private int lineLength = 0;
+            private volatile boolean mismatch = false;
+            private int distance = 0;
+            private int lineNumber = 0;
+            private int firstDifference = -1;
+            private final List<String> window = new ArrayList<>();
+
+            StreamingJudge(String judgeOutPath) throws IOException {
+                this.judgeOutPath = judgeOutPath;
+                expected = new MappedLines(Path.of(judgeOutPath));
+            }
+
+            public boolean hasMismatch() {
+                return mismatch;
+            }
+
+            public boolean shouldStop() {
+                return mismatch;
+            }
+
+            private boolean windowFull() {
+                return mismatch && window.size() >= WINDOW_LINES;
+            }
+
+            private void append(byte[] b, int off, int len) {
+                if (lineLength + len > line.length) {
+                    line = Arrays.copyOf(
+                        line,
+                        Math.max(lineLength + len, line.length * 2)
+                    );
+                }
+                System.arraycopy(b, off, line, lineLength, len);
+                lineLength += len;
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                if (windowFull()) return;
+                if (b == '\n') {
+                    endLine();
+                } else {
+                    if (lineLength == line.length) {
+                        line = Arrays.copyOf(line, line.length * 2);
+                    }
+                    line[lineLength++] = (byte) b;
+                }
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                int end = off + len;
+                while (off < end && !windowFull()) {
+                    int newline = off;
+                    while (newline < end && b[newline] != '\n') newline++;
+                    append(b, off, newline - off);
+                    if (newline == end) return;
+                    endLine();
+                    off = newline + 1;
+                }
+            }
+
+            private void endLine() {
+                int from = 0, to = lineLength;
+                while (from < to && (line[from] & 0xff) <= ' ') from++;
+                while (to > from && (line[to - 1] & 0xff) <= ' ') to--;
+                lineLength = 0;
+                if (mismatch) {
+                    // whatever was already printed before it could be stopped
+                    remember(from, to);
+                    return;
+                }
+                compareLine(from, to);
+                lineNumber++;
+            }
+
+            // the current line is line[from, to), already trimmed
+            private void compareLine(int from, int to) {
+                boolean same;
+                if (!expected.next()) {
+                    // see isOutputOver: only blank lines can come after the end
+                    same = from == to;
+                    mismatch = !same;
+                } else {
+                    same = expected.sameLine(line, from, to);
+                    if (USE_LEVENSHTEIN_JUDGING) {
+                        if (!same && distance <= MAX_LEVENSHTEIN_DISTANCE) {
+                            distance += levenshtein(
+                                expected.line(),
+                                decode(from, to),
+                                MAX_LEVENSHTEIN_DISTANCE - distance
+                            );
+                        }
+                        mismatch = distance > MAX_LEVENSHTEIN_DISTANCE;
+                    } else {
+                        mismatch = !same;
+                    }
+                }
+                if (firstDifference < 0 && !same) firstDifference = lineNumber;
+                remember(from, to);
+            }
+
+            private String decode(int from, int to) {
+                return new String(line, from, to - from, Charset.defaultCharset());
+            }
+
+            private void remember(int from, int to) {
+                if (firstDifference >= 0 && window.size() < WINDOW_LINES) {
+                    window.add(decode(from, to));
+                }
+            }
+
+            // call once the program has finished
+            public boolean isCorrect() throws IOException {
+                if (!mismatch && lineLength > 0) {
+                    endLine(); // last line had no newline
+                }
+                while (!mismatch && expected.next()) {
+                    mismatch = !expected.isBlank(); // the program stopped too early
+                    if (mismatch && firstDifference < 0) {
+                        firstDifference = lineNumber;
+                    }
+                }
+                return !mismatch;
+            }
+
+            // the first divergence, lined up against the .out file around it
+            public String report() throws IOException {
+                if (firstDifference < 0) return null;
+                int from = Math.max(0, firstDifference - CONTEXT_LINES);
+
+                // the lines before the first difference matched the .out file, so
+                // they come from there. The program may have been stopped, so only
+                // look as far ahead as it got, plus a bit for missing lines.
+                List<String> correct = new ArrayList<>();
+                List<String> actual = new ArrayList<>();
+                try (MappedLines reader = new MappedLines(Path.of(judgeOutPath))) {
+                    for (int i = 0; reader.next(); i++) {
+                        if (i < from) continue;
+                        if (i < firstDifference) actual.add(reader.line());
+                        if (
+                            correct.size() >=
+                            firstDifference - from + window.size() + LOOKAHEAD_LINES
+                        ) {
+                            break;
+                        }
+                        correct.add(reader.line());
+                    }
+                }
+                actual.addAll(window);
+                return LineDiff.firstDivergence(correct, actual, from);
+            }
+
+            @Override
+            public void close() throws IOException {
+                expected.close();
+            }
+        }
+
+        // Two rows of the usual dp table, kept per thread so a call allocates nothing
+        // once the rows are as long as the longest line seen so far.
+        private static final ThreadLocal<int[][]> levenshteinRows =
+            ThreadLocal.withInitial(() -> new int[2][64]);
+
+        // Edit distance between x and y, as long as it is at most budget. Anything
+        // over budget comes back as budget + 1 without finishing the table. Only
+        // the cells within budget of the diagonal can stay under budget, so that
+        // band is all that gets filled in.
+        public static int levenshtein(String x, String y, int budget) {
+            if (budget < 0) {
+                // callers stop once they're over, there's no right answer to give
+                throw new IllegalArgumentException("Negative budget " + budget);
+            }
+            int over = budget + 1;
+
+            // a shared prefix or suffix never costs anything
+            int start = 0;
+            int xEnd = x.length(), yEnd = y.length();
+            while (
+                start < xEnd &&
+                start < yEnd &&
+                x.charAt(start) == y.charAt(start)
+            ) {
+                start++;
+            }
+            while (
+                xEnd > start &&
+                yEnd > start &&
+                x.charAt(xEnd - 1) == y.charAt(yEnd - 1)
+            ) {
+                xEnd--;
+                yEnd--;
+            }
+            int n = xEnd - start, m = yEnd - start;
+            if (Math.abs(n - m) > budget) return over;
+            if (n == 0 || m == 0) return Math.max(n, m);
+
+            int[][] rows = levenshteinRows.get();
+            if (rows[0].length < m + 2) {
+                rows = new int[2][Math.max(m + 2, rows[0].length * 2)];
+                levenshteinRows.set(rows);
+            }
+            int[] prev = rows[0], cur = rows[1];
+            for (int j = 0; j <= m + 1 && j < prev.length; j++) {
+                prev[j] = Math.min(j, over);
+            }
+
+            for (int i = 1; i <= n; i++) {
+                int lo = Math.max(1, i - budget);
+                int hi = Math.min(m, i + budget);
+                cur[lo - 1] = lo == 1 ? Math.min(i, over) : over;
+                int rowMin = cur[lo - 1];
+                char xc = x.charAt(start + i - 1);
+                for (int j = lo; j <= hi; j++) {
+                    int best = prev[j - 1];
+                    if (xc != y.charAt(start + j - 1)) best++;
+                    if (prev[j] + 1 < best) best = prev[j] + 1;
+                    if (cur[j - 1] + 1 < best) best = cur[j - 1] + 1;
+                    if (best > over) best = over;
+                    cur[j] = best;
+                    if (best < rowMin) rowMin = best;
+                }
+                // the next row reads one cell past this row's band
+                if (hi < m) cur[hi + 1] = over;
+                if (rowMin > budget) return over;
+
+                int[] tmp = prev;
+                prev = cur;
+                cur = tmp;
+            }
+            return Math.min(prev[m], over);
+        }
+
+        // The original full-matrix version, only kept around as Bench's baseline.
+        // copied from baeldung [https://www.baeldung.com/java-levenshtein-distance]
+        private static int costOfSubstitution(char a, char b) {
+            return a == b ? 0 : 1;
+        }
+
+        private static int min(int... numbers) {
+            return Arrays.stream(numbers).min().orElse(Integer.MAX_VALUE);
+        }
+
+        public static int levenshteinFullMatrix(String x, String y) {
+            int[][] dp = new int[x.length() + 1][y.length() + 1];
+
+            for (int i = 0; i <= x.length(); i++) {
+                for (int j = 0; j <= y.length(); j++) {
+                    if (i == 0) {
+                        dp[i][j] = j;
+                    } else if (j == 0) {
+                        dp[i][j] = i;
+                    } else {
+                        dp[i][j] = min(
+                            dp[i - 1][j - 1] +
+                                costOfSubstitution(
+                                    x.charAt(i - 1),
+                                    y.charAt(j - 1)
+                                ),
+                            dp[i - 1][j] + 1,
+                            dp[i][j - 1] + 1
+                        );
+                    }
+                }
+            }
+
+            return dp[x.length()][y.length()];
+        }
+    }
+
+    // An output file read a line at a time as byte ranges, so comparing against it
+    // doesn't decode or allocate anything per line. Big files are memory-mapped.
+    // Lines end at \n, \r or \r\n like BufferedReader.readLine, and are trimmed of
+    // the same bytes String.trim would drop (every ASCII-compatible charset agrees
+    // on those), so byte-equal trimmed lines are always equal lines. Lines whose
+    // bytes differ get decoded and compared as strings to keep the exact rules.
+    public static class MappedLines implements AutoCloseable {
+
+        // a mapping keeps the file locked on Windows until it's garbage collected,
+        // and small files are just as quick to read
+        private static final long MAP_THRESHOLD = 1 << 20;
+        private static final Charset charset = Charset.defaultCharset();
+
+        private final FileChannel channel;
+        private final ByteBuffer buf;
+        private int pos = 0;
+        private int start, end; // the current line, trimmed
+
+        public MappedLines(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            try {
+                long size = channel.size();
+                if (size > Integer.MAX_VALUE) {
+                    throw new IOException(file + " is too big to map");
+                }
+                if (size >= MAP_THRESHOLD) {
+                    buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                } else {
+                    buf = ByteBuffer.allocate((int) size);
+                    while (buf.hasRemaining() && channel.read(buf) >= 0) {}
+                    buf.flip();
+                }
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        // moves to the next line, false once the file has run out
+        public boolean next() {
+            int limit = buf.limit();
+            if (pos >= limit) return false;
+            int e = pos;
+            while (e < limit) {
+                byte b = buf.get(e);
+                if (b == '\n' || b == '\r') break;
+                e++;
+            }
+            start = pos;
+            end = e;
+            pos = e < limit ? e + 1 : limit;
+            if (e < limit && buf.get(e) == '\r' && pos < limit) {
+                if (buf.get(pos) == '\n') pos++;
+            }
+            while (start < end && (buf.get(start) & 0xff) <= ' ') start++;
+            while (end > start && (buf.get(end - 1) & 0xff) <= ' ') end--;
+            return true;
+        }
+
+        public String line() {
+            byte[] bytes = new byte[end - start];
+            buf.get(start, bytes);
+            return new String(bytes, charset);
+        }
+
+        public boolean isBlank() {
+            return start == end || line().isBlank();
+        }
+
+        // whether the current line matches bytes[from, to), already trimmed
+        public boolean sameLine(byte[] bytes, int from, int to) {
+            if (to - from == end - start) {
+                int i = start;
+                while (from < to && bytes[from] == buf.get(i)) {
+                    from++;
+                    i++;
+                }
+                if (from == to) return true;
+            }
+            return line().equals(new String(bytes, from, to - from, charset).trim());
+        }
+
+        public boolean sameLine(MappedLines other) {
+            int len = end - start;
+            if (len == other.end - other.start) {
+                int mismatch = buf
+                    .slice(start, len)
+                    .mismatch(other.buf.slice(other.start, len));
+                if (mismatch < 0) return true;
+            }
+            return line().equals(other.line());
+        }
+
+        // isSameOutput for two files. Identical bytes, the usual case for a correct
+        // answer, are settled with one vectorized mismatch over the whole files;
+        // otherwise lines are only compared from the one holding the first
+        // differing byte.
+        public static boolean isSameOutput(Path correct, Path student)
+            throws IOException {
+            try (
+                MappedLines c = new MappedLines(correct);
+                MappedLines s = new MappedLines(student)
+            ) {
+                int first = c.buf.mismatch(s.buf);
+                if (first < 0) return true;
+
+                int from = first;
+                while (from > 0 && c.buf.get(from - 1) != '\n') from--;
+                c.pos = s.pos = from;
+
+                boolean hasC = c.next(), hasS = s.next();
+                while (hasC && hasS) {
+                    if (!c.sameLine(s)) return false;
+                    hasC = c.next();
+                    hasS = s.next();
+                }
+                // same end-of-output rule as Problem.isOutputOver
+                while (hasC && c.isBlank()) hasC = c.next();
+                while (hasS && s.isBlank()) hasS = s.next();
+                return !hasC && !hasS;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    // Myers' O(ND) diff over output lines, so one missing or extra line shows up as
+    // exactly that instead of making every line after it look wrong. Lines are
+    // compared trimmed, by hash first. Only the part between the common prefix and
+    // suffix is diffed, and the search gives up past MAX_EDITS differences so the
+    // memory it needs stays bounded no matter how long the outputs are.
+    public static class LineDiff {
+
+        private static final int MAX_EDITS = 1000;
+        private static final int CONTEXT_LINES = 2;
+        private static final int REPORT_LINES = 8;
+
+        public enum Op {
+            EQUAL,
+            MISSING, // in the expected output only
+            EXTRA, // in the actual output only
+        }
+
+        public static class Edit {
+
+            public final Op op;
+            public final int expectedLine, actualLine; // 0-based, -1 if n/a
+
+            Edit(Op op, int expectedLine, int actualLine) {
+                this.op = op;
+                this.expectedLine = expectedLine;
+                this.actualLine = actualLine;
+            }
+        }
+
+        private final List<String> expected, actual;
+        private final int[] expectedHashes, actualHashes;
+
+        private LineDiff(List<String> expected, List<String> actual) {
+            this.expected = normalize(expected);
+            this.actual = normalize(actual);
+            this.expectedHashes = hashes(this.expected);
+            this.actualHashes = hashes(this.actual);
+        }
+
+        // trims every line and drops the trailing blank ones, like the judge does
+        private static List<String> normalize(List<String> lines) {
+            List<String> trimmed = new ArrayList<>(lines.size());
+            for (String l : lines) trimmed.add(l.trim());
+            int end = trimmed.size();
+            while (end > 0 && trimmed.get(end - 1).isEmpty()) end--;
+            return trimmed.subList(0, end);
+        }
+
+        private static int[] hashes(List<String> lines) {
+            int[] h = new int[lines.size()];
+            for (int i = 0; i < h.length; i++) h[i] = lines.get(i).hashCode();
+            return h;
+        }
+
+        private boolean same(int e, int a) {
+            return (
+                expectedHashes[e] == actualHashes[a] &&
+                expected.get(e).equals(actual.get(a))
+            );
+        }
+
+        // The full edit script, or null if more than MAX_EDITS lines differ.
+        private List<Edit> edits() {
+            int n = expected.size(), m = actual.size();
+            int prefix = 0;
+            while (prefix < n && prefix < m && same(prefix, prefix)) prefix++;
+            int suffix = 0;
+            while (
+                suffix < n - prefix &&
+                suffix < m - prefix &&
+                same(n - 1 - suffix, m - 1 - suffix)
+            ) {
+                suffix++;
+            }
+
+            List<Edit> middle = myers(prefix, n - suffix, prefix, m - suffix);
+            if (middle == null) return null;
+
+            List<Edit> edits = new ArrayList<>(prefix + middle.size() + suffix);
+            for (int i = 0; i < prefix; i++) {
+                edits.add(new Edit(Op.EQUAL, i, i));
+            }
+            edits.addAll(middle);
+            for (int i = suffix; i > 0; i--) {
+                edits.add(new Edit(Op.EQUAL, n - i, m - i));
+            }
+            return edits;
+        }
+
+        // greedy forward search, keeping each round's frontier to walk back through
+        private List<Edit> myers(int eStart, int eEnd, int aStart, int aEnd) {
+            int n = eEnd - eStart, m = aEnd - aStart;
+            int max = Math.min(n + m, MAX_EDITS);
+            int offset = max + 1;
+            int[] v = new int[2 * max + 3];
+            List<int[]> trace = new ArrayList<>();
+
+            for (int d = 0; d <= max; d++) {
+                // only [-d, d] of the previous round is ever read back
+                trace.add(Arrays.copyOfRange(v, offset - d, offset + d + 1));
+                for (int k = -d; k <= d; k += 2) {
+                    int x =
+                        k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1])
+                            ? v[offset + k + 1]
+                            : v[offset + k - 1] + 1;
+                    int y = x - k;
+                    while (x < n && y < m && same(eStart + x, aStart + y)) {
+                        x++;
+                        y++;
+                    }
+                    v[offset + k] = x;
+                    if (x >= n && y >= m) {
+                        return backtrack(trace, d, n, m, eStart, aStart);
+                    }
+                }
+            }
+            return null;
+        }
+
+        private List<Edit> backtrack(
+            List<int[]> trace,
+            int distance,
+            int x,
+            int y,
+            int eStart,
+            int aStart
+        ) {
+            List<Edit> edits = new ArrayList<>();
+            for (int d = distance; d > 0; d--) {
+                int[] v = trace.get(d); // frontier after round d - 1, offset by d
+                int k = x - y;
+                boolean down = k == -d || (k != d && v[k - 1 + d] < v[k + 1 + d]);
+                int prevK = down ? k + 1 : k - 1;
+                int prevX = v[prevK + d];
+                int prevY = prevX - prevK;
+                while (x > prevX && y > prevY) {
+                    x--;
+                    y--;
+                    edits.add(new Edit(Op.EQUAL, eStart + x, aStart + y));
+                }
+                if (down) {
+                    edits.add(new Edit(Op.EXTRA, -1, aStart + prevY));
+                } else {
+                    edits.add(new Edit(Op.MISSING, eStart + prevX, -1));
+                }
+                x = prevX;
+                y = prevY;
+            }
+            while (x > 0 && y > 0) {
+                x--;
+                y--;
+                edits.add(new Edit(Op.EQUAL, eStart + x, aStart + y));
+            }
+            Collections.reverse(edits);
+            return edits;
+        }
+
+        // How far apart the outputs are once lines are lined up: paired changed lines
+        // cost their Levenshtein distance and unpaired ones cost their length (so a
+        // stray blank line is free). Stops counting once it is over budget.
+        public static int distance(
+            List<String> expected,
+            List<String> actual,
+            int budget
+        ) {
+            LineDiff diff = new LineDiff(expected, actual);
+            List<Edit> edits = diff.edits();
+            if (edits == null) return Integer.MAX_VALUE;
+
+            int total = 0;
+            int i = 0;
+            while (i < edits.size() && total <= budget) {
+                if (edits.get(i).op == Op.EQUAL) {
+                    i++;
+                    continue;
+                }
+                List<String> missing = new ArrayList<>();
+                List<String> extra = new ArrayList<>();
+                for (; i < edits.size() && edits.get(i).op != Op.EQUAL; i++) {
+                    Edit e = edits.get(i);
+                    if (e.op == Op.MISSING) {
+                        missing.add(diff.expected.get(e.expectedLine));
+                    } else {
+                        extra.add(diff.actual.get(e.actualLine));
+                    }
+                }
+                int paired = Math.min(missing.size(), extra.size());
+                for (int j = 0; j < paired && total <= budget; j++) {
+                    total += Problem.levenshtein(
+                        missing.get(j),
+                        extra.get(j),
+                        budget - total
+                    );
+                }
+                for (int j = paired; j < missing.size(); j++) {
+                    total += missing.get(j).length();
+                }
+                for (int j = paired; j < extra.size(); j++) {
+                    total += extra.get(j).length();
+                }
+            }
+            return total;
+        }
+
+        // A few lines around the first place the outputs stop lining up, or null if
+        // they don't differ. lineOffset is added to the line numbers shown.
+        public static String firstDivergence(
+            List<String> expected,
+            List<String> actual,
+            int lineOffset
+        ) {
+            LineDiff diff = new LineDiff(expected, actual);
+            List<Edit> edits = diff.edits();
+            if (edits == null) {
+                // too different to line up, so just point at the first difference
+                int n = Math.min(diff.expected.size(), diff.actual.size());
+                int first = 0;
+                while (first < n && diff.same(first, first)) first++;
+                return String.format(
+                    "Output differs from line %d onwards (more than %d lines differ).\n",
+                    first + 1 + lineOffset,
+                    MAX_EDITS
+                );
+            }
+
+            int first = 0;
+            while (first < edits.size() && edits.get(first).op == Op.EQUAL) {
+                first++;
+            }
+            if (first == edits.size()) return null;
+
+            Edit divergence = edits.get(first);
+            int line = divergence.op == Op.MISSING
+                ? divergence.expectedLine
+                : divergence.actualLine;
+            StringBuilder sb = new StringBuilder(
+                String.format(
+                    "First difference at line %d (- expected, + yours):\n",
+                    line + 1 + lineOffset
+                )
+            );
+            // the first run of changes, capped, with a little context either side
+            int hunkEnd = first;
+            while (hunkEnd < edits.size() && edits.get(hunkEnd).op != Op.EQUAL) {
+                hunkEnd++;
+            }
+            int from = Math.max(0, first - CONTEXT_LINES);
+            int to = Math.min(edits.size(), hunkEnd + CONTEXT_LINES);
+            int skipped = 0;
+            for (int i = from; i < to; i++) {
+                if (i >= first + REPORT_LINES && i < hunkEnd) {
+                    skipped++;
+                    continue;
+                }
+                Edit e = edits.get(i);
+                switch (e.op) {
+                    case EQUAL -> sb.append(
+                        String.format(
+                            "  %6d  %s\n",
+                            e.actualLine + 1 + lineOffset,
+                            diff.actual.get(e.actualLine)
+                        )
+                    );
+                    case MISSING -> sb.append(
+                        String.format(
+                            "- %6d  %s\n",
+                            e.expectedLine + 1 + lineOffset,
+                            diff.expected.get(e.expectedLine)
+                        )
+                    );
+                    case EXTRA -> sb.append(
+                        String.format(
+                            "+ %6d  %s\n",
+                            e.actualLine + 1 + lineOffset,
+                            diff.actual.get(e.actualLine)
+                        )
+                    );
+                }
+            }
+            for (int i = to; i < edits.size(); i++) {
+                if (edits.get(i).op != Op.EQUAL) skipped++;
+            }
+            if (skipped > 0) {
+                sb.append(
+                    String.format("... and %d more differing lines\n", skipped)
+                );
+            }
+            return sb.toString();
+        }
+    }
+
+    public static class Competition {
+
+        Map<String, Problem> problems = new HashMap<>();
+        public PrintStream out = System.out;
+
+        @Override
+        public String toString() {
+            int totalScore = 0;
+            StringBuilder sb = new StringBuilder(
+                "========================= Start Problem List =========================\n"
+            );
+            for (Problem p : problems.values()) {
+                sb.append(p.toString());
+                totalScore += p.getScore();
+            }
+            sb.append(
+                "=========================  End Problem List  =========================\n"
+            );
+            sb.append("Total Score: ");
+            sb.append(totalScore);
+            sb.append("\n");
+            return sb.toString();
+        }
+
+        public Map<String, Problem> getProblems() {
+            return problems;
+        }
+
+        public Problem getProblem(String name) {
+            return problems.getOrDefault(name, null);
+        }
+
+        public int getContestScore() {
+            return problems
+                .values()
+                .stream()
+                .map(p -> p.getScore())
+                .reduce(0, (a, b) -> a + b);
+        }
+
+        public static Competition ReadFromDir(String... judgeFolderKeywords)
+            throws IOException {
+            return ReadFrom(Path.of(CompetitionDir), judgeFolderKeywords);
+        }
+
+        // root can be on disk or inside the mounted zip, in which case problems
+        // point at where LazyContest will extract their files
+        public static Competition ReadFrom(
+            Path root,
+            String... judgeFolderKeywords
+        ) throws IOException {
+            Path judgePath = IOUtils.checkDir(root, false, judgeFolderKeywords);
+            if (judgePath == null) {
+                throw new IOException("Could Not Find Judge Output Files.");
+            }
+            Set<Path> files = IOUtils.listFiles(judgePath, true);
+            Set<String> problemNames = new TreeSet<>();
+
+            files
+                .stream()
+                .map(f -> f.getFileName().toString())
+                .filter(f -> !(f.endsWith(".out") || f.endsWith(".dat")))
+                .forEach(f -> {
+                    problemNames.add(f.split("\\.")[0]);
+                });
+
+            Competition competition = new Competition();
+            // surely there's a better way, but I don't really care enough to make it faster
+            // (since there should only ever be 12 problems)
+            problemNames
+                .stream()
+                .forEach(name -> {
+                    String nameLC = name.toLowerCase();
+                    Path judgeOut = null;
+                    Path judgeData = null;
+                    Path codePath = null;
+                    for (Path f : files
+                        .stream()
+                        .filter(f ->
+                            f
+                                .getFileName()
+                                .toString()
+                                .toLowerCase()
+                                .startsWith(nameLC)
+                        )
+                        .collect(Collectors.toList())) {
+                        @SuppressWarnings("SingleCharRegex")
+                        String[] parts = f.getFileName().toString().split("\\.");
+                        String ext = parts[parts.length - 1].toLowerCase();
+                        switch (ext) {
+                            case "out" -> judgeOut = f;
+                            case "dat" -> judgeData = f;
+                            case "java" -> codePath = f;
+                            default -> {
+                            }
+                        }
+                    }
+
+                    if (!notNull(judgeOut, codePath)) return; // couldn't find data, but not sure about judge data (since Q1 lacks a data
+                    // file)
+
+                    competition
+                        .getProblems()
+                        .put(
+                            name.toLowerCase(),
+                            new Problem(
+                                name,
+                                LazyContest.localPath(judgeData),
+                                LazyContest.localPath(judgeOut),
+                                LazyContest.localPath(codePath)
+                            )
+                        );
+                });
+            // now, we then try to find the "A202X_StudentData" folder
+            Path studentDataPath = IOUtils.checkDir(root, false, "StudentData");
+            if (studentDataPath == null) {
+                System.out.println(
+                    "[WARNING] Unable to extract student program data. Will be unable to test student code."
+                );
+            }
+            for (Path dataFile : IOUtils.listFiles(studentDataPath, true)) {
+                String fileName = dataFile.getFileName().toString();
+                // 2025 state student data files are suffixed with `_student`
+                if (fileName.contains("_student")) {
+                    fileName = fileName.replace("_student", "");
+                }
+                String[] parts = fileName.split("\\.");
+                String problemName = parts[parts.length - 2];
+                competition
+                    .getProblem(problemName)
+                    .setStudentDataPath(LazyContest.localPath(dataFile));
+            }
+            return competition;
+        }
+
+        public static Competition ReadFromDir() throws IOException {
+            return ReadFromDir("Solutions", "JudgeData", "OutFiles");
+        }
+
+        public static Competition ReadFrom(Path root) throws IOException {
+            return ReadFrom(root, "Solutions", "JudgeData", "OutFiles");
+        }
+
+        public void setup() {
+            IOUtils.createDirIfAbsent(Path.of(StudentSourceDir));
+            for (Problem p : problems.values()) {
+                String name = p.getName();
+                try {
+                    Files.createFile(
+                        Path.of(
+                            StudentSourceDir,
+                            String.format("%s.java", name)
+                        )
+                    );
+                } catch (IOException e) {}
+            }
+        }
+
+        // see Problem.prepareAsync, leaving a core for whatever the student does.
+        // Graded runs go to workers, so start those too, and the class archive
+        // that later ones start from.
+        public void prepareAsync() {
+            ForkProfile.prepareAsync();
+            WorkerPool.replenish(DEFAULT_MEMORY_LIMIT_MB);
+            int workers = Math.max(
+                1,
+                Runtime.getRuntime().availableProcessors() - 1
+            );
+            ExecutorService pool = Executors.newFixedThreadPool(workers, r -> {
+                Thread t = new Thread(r, "problem-prep");
+                t.setDaemon(true);
+                return t;
+            });
+            problems
+                .values()
+                .stream()
+                .sorted(Comparator.comparing(Problem::getName))
+                .forEach(p -> p.prepareAsync(pool));
+            pool.shutdown();
+        }
+
+        public void printHelp(String cmd) {
+            if (cmd.split(" ").length > 1) {
+                printTimerHelp();
+                return;
+            }
+
+            out.println(
+                """
+                Summary Of Commands:
+
+                "timer <action> <problem?>" -- use the command "help timer" to see the available actions
+                "list" -- lists problems
+                "judge <problem>" -- judges the problem
+                "judge-all" -- judges every problem you have written code for, all at once
+                "check-all" -- checks every problem you have written code for, all at once
+                "run <problem>" -- runs the problem code with student data
+                "check <problem>" -- checks if the problem code produces the same solution using student data
+                "show <problem>" -- shows your current code for the problem that it would run/judge
+                "data <problem>" -- outputs the student data (if exists)
+                "save-sd <problem>" -- saves student data to student code directory
+                "editor <problem>" -- opens problem code file in default application (unlikely to be the code editor you want)
+                "problem-packet" -- opens the student packet in the default application (likely a browser)
+                "clear" -- clears the screen
+                "exit" -- stops the competition
+                "here" -- opens the student code directory
+                "dir" -- lists student code directorysd
+                "cache" -- shows how often compiled code, solution output and extracted contests were reused
+                "limits <problem> <seconds?> <megabytes?>" -- shows or changes the time and memory limits for the problem
+                "stats <problem?|reset|dump>" -- shows where the time in run/check/judge went (dump saves it to a file when the launcher exits)
+                "restart" -- (only useful for development) effectively "replaces" the current instance of the program with a fresh one
+                "help" -- shows this message again"""
+            );
+        }
+
+        public void printTimerHelp() {
             out.println("Timer commands:");
             out.println(
-                """
-                \ttimer start <problem> -- starts the timer for the problem
-                \ttimer stop <problem> -- stops the timer for the problem
-                \ttimer reset <problem> -- resets the timer for the problem
-                \ttimer status <problem> -- shows the status of the timer for the problem
-                """
+                """
+                \ttimer start <problem> -- starts the timer for the problem
+                \ttimer stop <problem> -- stops the timer for the problem
+                \ttimer reset <problem> -- resets the timer for the problem
+                \ttimer status <problem> -- shows the status of the timer for the problem
+                """
+            );
+        }
+
+        public void run(PrintStream out) {
+            try {
+                @SuppressWarnings("resource")
+                Scanner input = new Scanner(System.in);
+                printHelp("");
+                while (true) {
+                    out.print("> ");
+                    String line = input.nextLine().toLowerCase();
+                    String[] parts = line.split(" ");
+                    String problemName = (parts.length > 1) ? parts[1] : "";
+                    switch (parts[0]) {
+                        case "list" -> out.println(this);
+                        case "judge" -> judge(problemName);
+                        case "judge-all" -> gradeAll(true);
+                        case "check-all" -> gradeAll(false);
+                        case "run" -> run(problemName);
+                        case "check" -> check(problemName);
+                        case "show" -> show(problemName);
+                        case "data" -> showStudentData(problemName);
+                        case "save-sd" -> saveStudentData(problemName);
+                        case "editor" -> openInDefaultEditor(problemName);
+                        case "clear" -> clear();
+                        case "here" -> explorer();
+                        case "dir" -> ls_la();
+                        case "problem-packet" -> openProblemPacket();
+                        case "exec" -> {
+                            if (parts.length < 2) {
+                                System.out.println("Insufficient Arguments.");
+                            } else {
+                                exec(
+                                    Arrays.copyOfRange(parts, 1, parts.length)
+                                );
+                            }
+                        }
+                        case "exit" -> {
+                            return;
+                        }
+                        case "cache" -> {
+                            out.println(CompileCache.describe());
+                            out.println(ReferenceOutputCache.describe());
+                            out.println(ContestCache.describe());
+                            if (LazyContest.isOpen()) {
+                                out.println(LazyContest.describe());
+                            }
+                        }
+                        case "limits" -> limits(parts);
+                        case "stats" -> stats(problemName);
+                        case "restart" -> restart();
+                        case "help" -> printHelp(line);
+                        default -> {
+                            System.out.println("Unrecognized Command");
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                System.out.println(e);
+                System.out.println(
+                    "Unknown Error Occured. See above for details."
+                );
+                IOUtils.cleanUpTemp();
+            }
+        }
+
+        private void openItem(String path, String successMsg, String errMsg) {
+            try {
+                ProcessBuilder pb;
+                if (IsWindows) {
+                    pb = new ProcessBuilder("invoke-item", path).inheritIO();
+                } else if (IsMac) {
+                    pb = new ProcessBuilder("open", path).inheritIO();
+                } else {
+                    pb = new ProcessBuilder("xdg-open", path).inheritIO();
+                }
+                pb.start().waitFor();
+                out.println(successMsg);
+            } catch (Exception e) {
+                System.out.println(e);
+                System.out.println(errMsg);
+            }
+        }
+
+        private void openProblemPacket() {
+            if (SelectedCompetition == null) {
+                out.println(
+                    "User did not select a competition to download, and thus I have no clue what competition file to open."
+                );
+                return;
+            }
+            System.out.printf(
+                "Student Packet URL:\n\n\t%s\n\n",
+                SelectedCompetition.studentPacketURL
+            );
+            openItem(
+                SelectedCompetition.studentPacketURL,
+                "Opened student packet in default application.",
+                "Failed to open student packet in default application."
+            );
+        }
+
+        private void openInDefaultEditor(String problemName) {
+            Problem p = getUserSelectedProblem(problemName);
+            if (p == null) {
+                out.println("Invalid problem selected.");
+            }
+            openItem(
+                Path.of(StudentSourceDir, p.getName() + ".java").toString(),
+                "Opened problem code file in default application.",
+                "Failed to open problem code file in default application."
+            );
+        }
+
+        private void saveStudentData(String problemName) {
+            Problem p = getUserSelectedProblem(problemName);
+            if (p == null) {
+                out.println("Invalid problem selected.");
+            }
+
+            p.materialize();
+            String studentDataPath = p.getStudentDataPath();
+            try {
+                Files.copy(
+                    Path.of(studentDataPath),
+                    Path.of(
+                        StudentSourceDir,
+                        String.format("%s.dat", p.getName().toLowerCase())
+                    )
+                );
+            } catch (IOException e) {
+                System.out.println(e);
+                System.out.println(
+                    "Unable to save student data. See exception message above for more errors"
+                );
+            }
+        }
+
+        private void ls_la() {
+            try {
+                ProcessBuilder pb;
+                if (IsWindows) {
+                    pb = new ProcessBuilder("cmd", "/c", "dir");
+                } else {
+                    pb = new ProcessBuilder("ls", "-la");
+                }
+                pb.directory(new File(StudentSourceDir));
+                pb.inheritIO().start().waitFor();
+            } catch (IOException | InterruptedException ex) {}
+        }
+
+        private void explorer() {
+            String[] cmd = null;
+            if (IsWindows) {
+                cmd = new String[] { "explorer.exe", StudentSourceDir };
+            } else if (IsMac) {
+                cmd = new String[] { "open", StudentSourceDir };
+            } else {
+                cmd = new String[] { "xdg-open", StudentSourceDir };
+            }
+
+            try {
+                ProcessBuilder pb = new ProcessBuilder(cmd);
+                pb.start().waitFor();
+            } catch (IOException | InterruptedException e) {
+                // do nothing, don't care
+            }
+        }
+
+        private String getStudentCodePath(Problem p) {
+            return Path.of(
+                StudentSourceDir,
+                String.format("%s.java", p.name)
+            ).toString();
+        }
+
+        private Problem getUserSelectedProblem(String name) {
+            Problem p = problems.getOrDefault(name.trim().toLowerCase(), null);
+            if (p == null) {
+                out.println(
+                    "Invalid problem selected. Could not find problem: " + name
+                );
+            }
+            return p;
+        }
+
+        private void limits(String[] parts) {
+            Problem p = getUserSelectedProblem(parts.length > 1 ? parts[1] : "");
+            if (p == null) return;
+            try {
+                long timeLimit = parts.length > 2
+                    ? Math.round(Double.parseDouble(parts[2]) * 1000)
+                    : p.getTimeLimitMillis();
+                int memoryLimit = parts.length > 3
+                    ? Integer.parseInt(parts[3])
+                    : p.getMemoryLimitMb();
+                if (timeLimit <= 0 || memoryLimit <= 0) {
+                    out.println("Limits must be more than zero.");
+                } else {
+                    p.setLimits(timeLimit, memoryLimit);
+                }
+            } catch (NumberFormatException e) {
+                out.println("Limits must be numbers.");
+            }
+            out.printf(
+                "%s: %.1f seconds, %d MB\n",
+                p.getName(),
+                p.getTimeLimitMillis() / 1000.0,
+                p.getMemoryLimitMb()
+            );
+        }
+
+        private void stats(String arg) {
+            switch (arg) {
+                case "" -> out.println(Timings.describe(null));
+                case "reset" -> {
+                    Timings.reset();
+                    out.println("Timings cleared.");
+                }
+                case "dump" -> out.printf(
+                    "Timings will be saved to %s on exit.\n",
+                    Timings.dumpAtExit()
+                );
+                default -> {
+                    Problem p = getUserSelectedProblem(arg);
+                    if (p != null) out.println(Timings.describe(p.getName()));
+                }
+            }
+        }
+
+        private void restart() {
+            try {
+                System.out.println(
+                    "Bootstrapping the lastest version to run on current process..."
+                );
+                // the cached copy is only there if it's of the current file
+                List<String> cached = SelfCache.command(SelfCache.sourceFile());
+                (
+                    cached != null
+                        ? new ProcessBuilder(cached).inheritIO()
+                        : new ProcessBuilder("java", "UILaunch.java").inheritIO()
+                ).start().waitFor();
+            } catch (Exception e) {}
+            IOUtils.cleanUpTemp();
+            System.exit(0);
+        }
+
+        private void show(String problemName) {
+            Problem p = getUserSelectedProblem(problemName);
+            if (p == null) return;
+
+            try {
+                List<String> lines = Files.readAllLines(
+                    Path.of(
+                        StudentSourceDir,
+                        String.format("%s.java", p.getName())
+                    )
+                );
+                lines.forEach(l -> out.println(l));
+            } catch (IOException e) {}
+        }
+
+        private void showStudentData(String problemName) {
+            Problem p = getUserSelectedProblem(problemName);
+            if (p == null) return;
+            p.materialize();
+            try {
+                if (
+                    p.studentDataPath == null ||
+                    !Files.exists(Path.of(p.studentDataPath))
+                ) {
+                    System.out.printf(
+                        "Problem <%s> does not have a data file.\n",
+                        p.getName()
+                    );
+                    return;
+                }
+
+                List<String> lines = Files.readAllLines(
+                    Path.of(p.studentDataPath)
+                );
+                lines.forEach(l -> out.println(l));
+            } catch (IOException e) {}
+        }
+
+        private void ansiClear() {
+            System.out.print("\033[H\033[2J");
+            System.out.flush();
+        }
+
+        private void pbClear() {
+            try {
+                ProcessBuilder pb;
+                if (IsWindows) {
+                    pb = new ProcessBuilder("cmd", "/c", "cls");
+                } else {
+                    pb = new ProcessBuilder("clear");
+                }
+                pb.inheritIO().start().waitFor();
+            } catch (IOException | InterruptedException ex) {}
+        }
+
+        private void clear() {
+            try {
+                ansiClear();
+                pbClear();
+            } catch (Exception e) {
+                // Fallback: print newlines
+                System.out.println("Fallback: write a ton of new lines");
+                for (int i = 0; i < 50; i++) {
+                    System.out.println();
+                }
+            }
+        }
+
+        private void exec(String... command) {
+            try {
+                (new ProcessBuilder(command).inheritIO()).start().waitFor();
+            } catch (IOException e) {
+            } catch (InterruptedException e) {
+            }
+        }
+
+        private void judge(String problemName) {
+            Problem p = getUserSelectedProblem(problemName);
+            if (p == null) return;
+
+            if (p.accepted) {
+                out.println("Problem already accepted.");
+            } else {
+                if (p.judge(getStudentCodePath(p))) {
+                    System.out.println("Solution Accepted.");
+                } else {
+                    System.out.printf(
+                        "Solution Denied (%s).\n",
+                        p.getLastVerdict()
+                    );
+                }
+            }
+        }
+
+        public static class GradeResult {
+
+            public final Problem problem;
+            public final Verdict verdict;
+            public final long elapsedNanos;
+            public final String log;
+            public final RunResult run; // null if it didn't get as far as running
+
+            GradeResult(
+                Problem problem,
+                Verdict verdict,
+                long elapsedNanos,
+                String log,
+                RunResult run
+            ) {
+                this.problem = problem;
+                this.verdict = verdict;
+                this.elapsedNanos = elapsedNanos;
+                this.log = log;
+                this.run = run;
+            }
+        }
+
+        private GradeResult grade(Problem p, boolean isJudge) {
+            return grade(p, getStudentCodePath(p), isJudge);
+        }
+
+        public GradeResult grade(Problem p, String codePath, boolean isJudge) {
+            if (isJudge && p.isAccepted()) {
+                return new GradeResult(p, Verdict.ACCEPTED, -1, "", null);
+            }
+            try {
+                // don't spend an attempt on the blank file `setup` created
+                if (Files.readString(Path.of(codePath)).isBlank()) {
+                    return new GradeResult(
+                        p,
+                        Verdict.NOT_ATTEMPTED,
+                        -1,
+                        "",
+                        null
+                    );
+                }
+            } catch (IOException e) {
+                return new GradeResult(p, Verdict.NOT_ATTEMPTED, -1, "", null);
+            }
+
+            ByteArrayOutputStream log = new ByteArrayOutputStream();
+            long start = System.nanoTime();
+            OutputRouter.redirect(log, () ->
+                isJudge ? p.judge(codePath) : p.check(codePath)
+            );
+            return new GradeResult(
+                p,
+                p.getLastVerdict(),
+                System.nanoTime() - start,
+                log.toString(),
+                p.getLastRun()
+            );
+        }
+
+        public List<Problem> getSortedProblems() {
+            return problems
+                .values()
+                .stream()
+                .sorted(Comparator.comparing(Problem::getName))
+                .toList();
+        }
+
+        // judges or checks every problem at once, one worker per core
+        private void gradeAll(boolean isJudge) {
+            List<Problem> list = getSortedProblems();
+            if (list.isEmpty()) return;
+            long start = System.nanoTime();
+            List<GradeResult> results = grade(list, isJudge);
+            printGradeResults(results, System.nanoTime() - start);
+        }
+
+        // grades the problems in parallel, results in the same order as list
+        public List<GradeResult> grade(List<Problem> list, boolean isJudge) {
+            int workers = Math.max(
+                1,
+                Math.min(Runtime.getRuntime().availableProcessors(), list.size())
+            );
+            out.printf(
+                "%s %d problems on %d worker%s...\n",
+                isJudge ? "Judging" : "Checking",
+                list.size(),
+                workers,
+                workers == 1 ? "" : "s"
+            );
+
+            ExecutorService pool = Executors.newFixedThreadPool(workers);
+            List<Future<GradeResult>> futures = new ArrayList<>();
+            for (Problem p : list) {
+                futures.add(pool.submit(() -> grade(p, isJudge)));
+            }
+            pool.shutdown();
+
+            List<GradeResult> results = new ArrayList<>();
+            for (Future<GradeResult> f : futures) {
+                try {
+                    results.add(f.get());
+                } catch (InterruptedException | ExecutionException e) {
+                    out.println(e);
+                }
+            }
+            return results;
+        }
+
+        public void printGradeResults(List<GradeResult> results, long wallNanos) {
+            out.println(
+                "========================= Grading Results ========================="
+            );
+            out.printf("%10s  %-22s %10s\n", "Problem", "Verdict", "Time");
+            for (GradeResult r : results) {
+                out.printf(
+                    "%10s  %-22s %10s\n",
+                    r.problem.getName(),
+                    r.verdict,
+                    r.elapsedNanos < 0
+                        ? "-"
+                        : String.format("%d ms", r.elapsedNanos / 1_000_000)
+                );
+            }
+            out.println(
+                "=========================  End Of Results  ========================="
+            );
+            GradeResult slowest = results
+                .stream()
+                .max(Comparator.comparingLong(r -> r.elapsedNanos))
+                .orElse(null);
+            out.printf(
+                "Finished in %d ms (slowest problem: %s, %d ms)\n",
+                wallNanos / 1_000_000,
+                slowest != null ? slowest.problem.getName() : "-",
+                slowest != null
+                    ? Math.max(0, slowest.elapsedNanos) / 1_000_000
+                    : 0
             );
+
+            // the table doesn't say why something didn't compile, crashed,
+            // printed the wrong thing or couldn't be graded at all
+            for (GradeResult r : results) {
+                if (r.verdict != Verdict.ACCEPTED && !r.log.isBlank()) {
+                    out.printf(
+                        "\n---------- %s ----------\n",
+                        r.problem.getName()
+                    );
+                    out.print(r.log);
+                }
+            }
         }
 
-        public void run(PrintStream out) {
-            try {
-                @SuppressWarnings("resource")
-                Scanner input = new Scanner(System.in);
-                printHelp("");
-                while (true) {
-                    out.print("> ");
-                    String line = input.nextLine().toLowerCase();
-                    String[] parts = line.split(" ");
-                    String problemName = (parts.length > 1) ? parts[1] : "";
-                    switch (parts[0]) {
-                        case "list" -> out.println(this);
-                        case "judge" -> judge(problemName);
-                        case "run" -> run(problemName);
-                        case "check" -> check(problemName);
-                        case "show" -> show(problemName);
-                        case "data" -> showStudentData(problemName);
-                        case "save-sd" -> saveStudentData(problemName);
-                        case "editor" -> openInDefaultEditor(problemName);
-                        case "clear" -> clear();
-                        case "here" -> explorer();
-                        case "dir" -> ls_la();
-                        case "problem-packet" -> openProblemPacket();
-                        case "exec" -> {
-                            if (parts.length < 2) {
-                                System.out.println("Insufficient Arguments.");
-                            } else {
-                                exec(
-                                    Arrays.copyOfRange(parts, 1, parts.length)
-                                );
+        private void run(String problemName) {
+            Problem p = getUserSelectedProblem(problemName);
+            if (p == null) return;
+            p.run(getStudentCodePath(p));
+        }
+
+        private void check(String problemName) {
+            Problem p = getUserSelectedProblem(problemName);
+            if (p == null) return;
+            if (p.check(getStudentCodePath(p))) {
+                out.println("Correct Solution.");
+            } else {
+                out.printf("Incorrect Solution (%s)\n", p.getLastVerdict());
+            }
+        }
+    }
+
+    // java UILaunch.java --zip <contest zip> --src <dir> [--json]
+    //     (--judge-all | --check-all | --judge <problem> | --check <problem>)...
+    // For scripts and grading boxes: nothing is asked, the commands run in order
+    // and the exit code is 0 if everything they graded was accepted, 1 if not and
+    // 2 if the arguments didn't make sense. With --json the results are the only
+    // thing on stdout, whatever the launcher would normally say goes to stderr.
+    // --students <dir> grades a whole team instead (see Classroom), which exits
+    // with 0 once the scoreboard is out.
+    public static class Headless {
+
+        private static final String USAGE = """
+            Usage: java UILaunch.java --zip <contest zip> --src <dir> [--json]
+                       (--judge-all | --check-all | --judge <problem> | --check <problem>)...
+                   java UILaunch.java --zip <contest zip> --students <dir> [--jobs <n>]
+                       [--json | --csv] [--judge-all | --check-all]
+                   java UILaunch.java --zip <contest zip> --serve [--port <port>] [--bind <address>]
+                       [--jobs <n>] [--queue <n>]
+            """;
+
+        public static boolean isRequested(String[] args) {
+            return Arrays.asList(args).contains("--zip");
+        }
+
+        public static int main(String[] args) {
+            IOUtils.createDirIfAbsent(Path.of(CompetitionDirRoot));
+            String zip = null, src = null, students = null, bind = null;
+            boolean json = false, csv = false, serve = false;
+            int jobs = Runtime.getRuntime().availableProcessors();
+            int port = JudgeServer.DEFAULT_PORT;
+            int queue = JudgeServer.DEFAULT_QUEUE_SIZE;
+            List<String[]> commands = new ArrayList<>();
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                String value = i + 1 < args.length ? args[i + 1] : null;
+                switch (arg) {
+                    case "--json" -> json = true;
+                    case "--csv" -> csv = true;
+                    case "--serve" -> serve = true;
+                    case "--judge-all", "--check-all" -> commands.add(
+                        new String[] { arg.substring(2), null }
+                    );
+                    case "--zip",
+                        "--src",
+                        "--students",
+                        "--jobs",
+                        "--port",
+                        "--queue",
+                        "--bind",
+                        "--judge",
+                        "--check" -> {
+                        if (value == null) return usage("Missing value for " + arg);
+                        i++;
+                        switch (arg) {
+                            case "--zip" -> zip = value;
+                            case "--src" -> src = value;
+                            case "--students" -> students = value;
+                            case "--bind" -> bind = value;
+                            case "--jobs", "--port", "--queue" -> {
+                                int n;
+                                try {
+                                    n = Integer.parseInt(value);
+                                } catch (NumberFormatException e) {
+                                    n = 0;
+                                }
+                                if (n < 1) {
+                                    return usage("Bad value for " + arg + ": " + value);
+                                }
+                                switch (arg) {
+                                    case "--jobs" -> jobs = n;
+                                    case "--port" -> port = n;
+                                    default -> queue = n;
+                                }
                             }
+                            default -> commands.add(
+                                new String[] { arg.substring(2), value }
+                            );
                         }
-                        case "exit" -> {
-                            return;
-                        }
-                        case "restart" -> restart();
-                        case "help" -> printHelp(line);
-                        default -> {
-                            System.out.println("Unrecognized Command");
-                        }
+                    }
+                    default -> {
+                        return usage("Unknown argument " + arg);
                     }
                 }
-            } catch (Exception e) {
-                System.out.println(e);
-                System.out.println(
-                    "Unknown Error Occured. See above for details."
+            }
+            if (zip == null || Files.notExists(Path.of(zip))) {
+                return usage("No contest zip at " + zip);
+            }
+            if (students != null) {
+                if (!Files.isDirectory(Path.of(students))) {
+                    return usage("No students folder at " + students);
+                }
+                if (json && csv) return usage("Pick one of --json and --csv");
+                if (
+                    commands.size() > 1 ||
+                    commands.stream().anyMatch(c -> c[1] != null)
+                ) {
+                    return usage("Grading students takes one of --judge-all and --check-all");
+                }
+            } else if (commands.isEmpty() && !serve) {
+                return usage("Nothing to do");
+            }
+            if (src != null) {
+                StudentSourceDir = Path.of(src).toAbsolutePath().toString();
+            }
+
+            PrintStream results = System.out;
+            if (json || csv) System.setOut(System.err);
+            long start = System.nanoTime();
+            InProcessCompiler.warmUp();
+            Competition competition;
+            try {
+                competition = openCompetition(zip);
+            } catch (IOException e) {
+                System.err.printf("Unable to open %s: %s\n", zip, e.getMessage());
+                return 2;
+            }
+            competition.prepareAsync();
+            long startupNanos = System.nanoTime() - start;
+
+            if (serve) {
+                try {
+                    new JudgeServer(competition, bind, port, jobs, queue).start();
+                } catch (IOException e) {
+                    System.err.println(e);
+                    return 2;
+                }
+                Runtime.getRuntime().addShutdownHook(
+                    new Thread(IOUtils::cleanUpTemp)
                 );
-                IOUtils.cleanUpTemp();
+                try {
+                    Thread.currentThread().join(); // until Ctrl+C
+                } catch (InterruptedException e) {}
+                return 0;
+            }
+
+            if (students != null) {
+                boolean isJudge =
+                    commands.isEmpty() || commands.get(0)[0].startsWith("judge");
+                Classroom classroom;
+                try {
+                    classroom = new Classroom(competition, Path.of(students));
+                } catch (IOException e) {
+                    System.err.println(e);
+                    return 2;
+                }
+                classroom.grade(isJudge, jobs);
+                if (json) {
+                    results.println(classroom.toJson(startupNanos));
+                } else if (csv) {
+                    results.print(classroom.toCsv());
+                } else {
+                    classroom.printScoreboard();
+                }
+                results.flush();
+                return 0;
+            }
+
+            // check every problem exists before spending time grading any of them
+            List<List<Problem>> targets = new ArrayList<>();
+            for (String[] command : commands) {
+                if (command[1] == null) {
+                    targets.add(competition.getSortedProblems());
+                    continue;
+                }
+                Problem p = competition.getProblem(command[1].toLowerCase());
+                if (p == null) {
+                    System.setOut(results);
+                    return usage("No problem named " + command[1]);
+                }
+                targets.add(List.of(p));
+            }
+
+            start = System.nanoTime();
+            List<String> names = new ArrayList<>();
+            List<Competition.GradeResult> graded = new ArrayList<>();
+            for (int i = 0; i < commands.size(); i++) {
+                boolean isJudge = commands.get(i)[0].startsWith("judge");
+                for (Competition.GradeResult r : competition.grade(
+                    targets.get(i),
+                    isJudge
+                )) {
+                    names.add(commands.get(i)[0]);
+                    graded.add(r);
+                }
             }
+            long gradingNanos = System.nanoTime() - start;
+
+            if (json) {
+                results.println(
+                    toJson(
+                        zip,
+                        competition,
+                        names,
+                        graded,
+                        startupNanos,
+                        gradingNanos
+                    )
+                );
+                results.flush();
+            } else {
+                competition.printGradeResults(graded, gradingNanos);
+                System.out.println(competition);
+            }
+            return graded.stream().allMatch(r -> r.verdict == Verdict.ACCEPTED)
+                ? 0
+                : 1;
         }
 
-        private void openItem(String path, String successMsg, String errMsg) {
-            try {
-                ProcessBuilder pb;
-                if (IsWindows) {
-                    pb = new ProcessBuilder("invoke-item", path).inheritIO();
-                } else if (IsMac) {
-                    pb = new ProcessBuilder("open", path).inheritIO();
+        private static int usage(String problem) {
+            System.err.println(problem);
+            System.err.print(USAGE);
+            return 2;
+        }
+
+        private static String toJson(
+            String zip,
+            Competition competition,
+            List<String> commands,
+            List<Competition.GradeResult> graded,
+            long startupNanos,
+            long gradingNanos
+        ) {
+            StringBuilder sb = new StringBuilder("{\n");
+            sb.append(
+                String.format(
+                    "  \"zip\": %s,\n  \"src\": %s,\n",
+                    quote(Path.of(zip).toAbsolutePath().toString()),
+                    quote(StudentSourceDir)
+                )
+            );
+            sb.append(
+                String.format(
+                    "  \"startupMs\": %d,\n  \"gradingMs\": %d,\n",
+                    startupNanos / 1_000_000,
+                    gradingNanos / 1_000_000
+                )
+            );
+            sb.append("  \"results\": [");
+            for (int i = 0; i < graded.size(); i++) {
+                Competition.GradeResult r = graded.get(i);
+                sb.append(i == 0 ? "\n" : ",\n");
+                sb.append(
+                    String.format(
+                        "    { \"command\": %s, \"problem\": %s, \"verdict\": %s, \"timeMs\": %s, ",
+                        quote(commands.get(i)),
+                        quote(r.problem.getName()),
+                        quote(r.verdict.name()),
+                        r.elapsedNanos < 0 ? "null" : r.elapsedNanos / 1_000_000
+                    )
+                );
+                if (r.run == null) {
+                    sb.append("\"run\": null, ");
                 } else {
-                    pb = new ProcessBuilder("xdg-open", path).inheritIO();
+                    sb.append(
+                        String.format(
+                            "\"run\": { \"exitCode\": %d, \"wallMs\": %d, \"cpuMs\": %s, \"peakMemoryBytes\": %s }, ",
+                            r.run.exitCode,
+                            r.run.wallNanos / 1_000_000,
+                            r.run.cpuNanos < 0
+                                ? "null"
+                                : r.run.cpuNanos / 1_000_000,
+                            r.run.peakMemoryBytes < 0
+                                ? "null"
+                                : r.run.peakMemoryBytes
+                        )
+                    );
                 }
-                pb.start().waitFor();
-                out.println(successMsg);
-            } catch (Exception e) {
-                System.out.println(e);
-                System.out.println(errMsg);
+                sb.append(
+                    String.format(
+                        "\"attempts\": %d, \"score\": %d, \"log\": %s }",
+                        r.problem.getNumberTries(),
+                        r.problem.getScore(),
+                        quote(r.log)
+                    )
+                );
             }
+            long accepted = graded
+                .stream()
+                .filter(r -> r.verdict == Verdict.ACCEPTED)
+                .count();
+            sb.append(graded.isEmpty() ? "],\n" : "\n  ],\n");
+            sb.append(
+                String.format(
+                    "  \"accepted\": %d,\n  \"graded\": %d,\n  \"score\": %d\n}",
+                    accepted,
+                    graded.size(),
+                    competition.getContestScore()
+                )
+            );
+            return sb.toString();
         }
 
-        private void openProblemPacket() {
-            if (SelectedCompetition == null) {
-                out.println(
-                    "User did not select a competition to download, and thus I have no clue what competition file to open."
+        public static String quote(String value) {
+            if (value == null) return "null";
+            StringBuilder sb = new StringBuilder("\"");
+            for (char c : value.toCharArray()) {
+                switch (c) {
+                    case '"' -> sb.append("\\\"");
+                    case '\\' -> sb.append("\\\\");
+                    case '\n' -> sb.append("\\n");
+                    case '\r' -> sb.append("\\r");
+                    case '\t' -> sb.append("\\t");
+                    default -> {
+                        if (c < 0x20) {
+                            sb.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            sb.append(c);
+                        }
+                    }
+                }
+            }
+            return sb.append('"').toString();
+        }
+    }
+
+    // Grades a whole team's practice contest in one go, from one folder per
+    // student: <root>/<student>/<Problem>.java. The contest is only read once and
+    // every student gets fresh copies of its problems, so attempts don't mix. All
+    // the (student, problem) pairs go through one pool of jobs workers, sharing the
+    // compile cache, the judge data and the reference outputs. Each submission is
+    // one attempt, scored by Problem.getScore like everywhere else.
+    public static class Classroom {
+
+        public static class Student {
+
+            public final String name;
+            // this student's copies, in the same order as the competition's
+            public final List<Problem> problems;
+            public final Map<String, Competition.GradeResult> results =
+                new ConcurrentHashMap<>();
+            // lower case file name -> file, Problem.java vs problem.java happens
+            private final Map<String, Path> files = new HashMap<>();
+            private final Path dir;
+
+            Student(Path dir, List<Problem> problems) throws IOException {
+                this.name = dir.getFileName().toString();
+                this.problems = problems;
+                try (Stream<Path> list = Files.list(dir)) {
+                    list.forEach(f ->
+                        files.put(f.getFileName().toString().toLowerCase(), f)
+                    );
+                }
+                this.dir = dir;
+            }
+
+            // where the file is, or would be if they didn't write it
+            public String codePath(Problem p) {
+                String fileName = String.format("%s.java", p.getName());
+                return files
+                    .getOrDefault(fileName.toLowerCase(), dir.resolve(fileName))
+                    .toString();
+            }
+
+            public int getScore() {
+                return problems.stream().mapToInt(Problem::getScore).sum();
+            }
+
+            // counts checks too, which pass without scoring anything
+            public long getSolved() {
+                return results
+                    .values()
+                    .stream()
+                    .filter(r -> r.verdict == Verdict.ACCEPTED)
+                    .count();
+            }
+        }
+
+        private final Competition competition;
+        private final List<String> problemNames;
+        public final List<Student> students = new ArrayList<>();
+        private final PrintStream out = System.out;
+        private int submissions = 0;
+        private long gradingNanos = 0;
+
+        public Classroom(Competition competition, Path root) throws IOException {
+            this.competition = competition;
+            this.problemNames = competition
+                .getSortedProblems()
+                .stream()
+                .map(Problem::getName)
+                .toList();
+            try (Stream<Path> dirs = Files.list(root)) {
+                for (Path dir : dirs
+                    .filter(Files::isDirectory)
+                    .sorted()
+                    .toList()) {
+                    students.add(
+                        new Student(
+                            dir,
+                            competition
+                                .getSortedProblems()
+                                .stream()
+                                .map(Problem::freshCopy)
+                                .toList()
+                        )
+                    );
+                }
+            }
+        }
+
+        public void grade(boolean isJudge, int jobs) {
+            int total = students.size() * problemNames.size();
+            out.printf(
+                "%s %d students x %d problems on %d worker%s...\n",
+                isJudge ? "Judging" : "Checking",
+                students.size(),
+                problemNames.size(),
+                jobs,
+                jobs == 1 ? "" : "s"
+            );
+            long start = System.nanoTime();
+            ExecutorService pool = Executors.newFixedThreadPool(jobs);
+            if (!isJudge) {
+                // every check compares against these, so get them out of the way
+                List<Future<?>> references = new ArrayList<>();
+                for (Problem p : competition.getSortedProblems()) {
+                    references.add(pool.submit(p::prepareReferenceOutput));
+                }
+                awaitAll(references);
+            }
+
+            AtomicInteger done = new AtomicInteger();
+            List<Future<?>> futures = new ArrayList<>();
+            for (Student student : students) {
+                for (Problem p : student.problems) {
+                    futures.add(
+                        pool.submit(() -> {
+                            Competition.GradeResult r = competition.grade(
+                                p,
+                                student.codePath(p),
+                                isJudge
+                            );
+                            student.results.put(p.getName(), r);
+                            out.printf(
+                                "[%d/%d] %s %s: %s\n",
+                                done.incrementAndGet(),
+                                total,
+                                student.name,
+                                p.getName(),
+                                r.verdict
+                            );
+                        })
+                    );
+                }
+            }
+            pool.shutdown();
+            awaitAll(futures);
+            gradingNanos = System.nanoTime() - start;
+
+            submissions = (int) students
+                .stream()
+                .flatMap(s -> s.results.values().stream())
+                .filter(r -> r.verdict != Verdict.NOT_ATTEMPTED)
+                .count();
+            out.printf(
+                "Graded %d submissions from %d students in %.1f s (%.1f submissions/s)\n",
+                submissions,
+                students.size(),
+                gradingNanos / 1e9,
+                submissions / Math.max(gradingNanos / 1e9, 1e-3)
+            );
+        }
+
+        private void awaitAll(List<Future<?>> futures) {
+            for (Future<?> f : futures) {
+                try {
+                    f.get();
+                } catch (InterruptedException | ExecutionException e) {
+                    out.println(e);
+                }
+            }
+        }
+
+        // best first, then whoever solved more, then by name
+        private List<Student> ranked() {
+            return students
+                .stream()
+                .sorted(
+                    Comparator.comparingInt(Student::getScore)
+                        .thenComparingLong(Student::getSolved)
+                        .reversed()
+                        .thenComparing(s -> s.name)
+                )
+                .toList();
+        }
+
+        private Verdict verdict(Student student, String problem) {
+            Competition.GradeResult r = student.results.get(problem);
+            return r != null ? r.verdict : Verdict.NOT_ATTEMPTED;
+        }
+
+        // points for accepted problems, otherwise what went wrong (WA, CE, TLE...)
+        private static String cell(Verdict verdict, Problem p) {
+            if (p.isAccepted()) return String.valueOf(p.getScore());
+            if (verdict == Verdict.ACCEPTED) return "AC"; // checked, not judged
+            if (verdict == Verdict.NOT_ATTEMPTED) return "-";
+            return Arrays.stream(verdict.toString().split(" "))
+                .map(w -> w.substring(0, 1))
+                .collect(Collectors.joining());
+        }
+
+        public void printScoreboard() {
+            StringBuilder header = new StringBuilder(
+                String.format("%-16s", "Student")
+            );
+            for (String name : problemNames) {
+                header.append(
+                    String.format(" %8s", name.length() > 8 ? name.substring(0, 8) : name)
                 );
-                return;
             }
-            System.out.printf(
-                "Student Packet URL:\n\n\t%s\n\n",
-                SelectedCompetition.studentPacketURL
+            header.append(String.format(" %6s %6s", "Solved", "Score"));
+            out.println(
+                "========================= Scoreboard ========================="
             );
-            openItem(
-                SelectedCompetition.studentPacketURL,
-                "Opened student packet in default application.",
-                "Failed to open student packet in default application."
+            out.println(header);
+            for (Student s : ranked()) {
+                StringBuilder row = new StringBuilder(
+                    String.format("%-16s", s.name)
+                );
+                for (Problem p : s.problems) {
+                    row.append(
+                        String.format(" %8s", cell(verdict(s, p.getName()), p))
+                    );
+                }
+                row.append(String.format(" %6d %6d", s.getSolved(), s.getScore()));
+                out.println(row);
+            }
+            out.println(
+                "=========================  End Of Scoreboard  ========================="
             );
         }
 
-        private void openInDefaultEditor(String problemName) {
-            Problem p = getUserSelectedProblem(problemName);
-            if (p == null) {
-                out.println("Invalid problem selected.");
+        public String toCsv() {
+            StringBuilder sb = new StringBuilder("student");
+            for (String name : problemNames) sb.append(',').append(csv(name));
+            sb.append(",solved,score\n");
+            for (Student s : ranked()) {
+                sb.append(csv(s.name));
+                for (Problem p : s.problems) sb.append(',').append(p.getScore());
+                sb.append(',').append(s.getSolved());
+                sb.append(',').append(s.getScore()).append('\n');
             }
-            openItem(
-                Path.of(StudentSourceDir, p.getName() + ".java").toString(),
-                "Opened problem code file in default application.",
-                "Failed to open problem code file in default application."
+            return sb.toString();
+        }
+
+        private static String csv(String value) {
+            if (!value.contains(",") && !value.contains("\"")) return value;
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+
+        public String toJson(long startupNanos) {
+            StringBuilder sb = new StringBuilder("{\n");
+            sb.append(
+                String.format(
+                    "  \"startupMs\": %d,\n  \"gradingMs\": %d,\n  \"submissions\": %d,\n  \"submissionsPerSecond\": %.2f,\n",
+                    startupNanos / 1_000_000,
+                    gradingNanos / 1_000_000,
+                    submissions,
+                    submissions / Math.max(gradingNanos / 1e9, 1e-3)
+                )
             );
+            sb.append("  \"students\": [");
+            List<Student> ranked = ranked();
+            for (int i = 0; i < ranked.size(); i++) {
+                Student s = ranked.get(i);
+                sb.append(i == 0 ? "\n" : ",\n");
+                sb.append(
+                    String.format(
+                        "    { \"name\": %s, \"score\": %d, \"solved\": %d, \"problems\": [",
+                        Headless.quote(s.name),
+                        s.getScore(),
+                        s.getSolved()
+                    )
+                );
+                for (int j = 0; j < s.problems.size(); j++) {
+                    Problem p = s.problems.get(j);
+                    Competition.GradeResult r = s.results.get(p.getName());
+                    sb.append(j == 0 ? "\n" : ",\n");
+                    sb.append(
+                        String.format(
+                            "      { \"problem\": %s, \"verdict\": %s, \"score\": %d, \"timeMs\": %s }",
+                            Headless.quote(p.getName()),
+                            Headless.quote(verdict(s, p.getName()).name()),
+                            p.getScore(),
+                            r == null || r.elapsedNanos < 0
+                                ? "null"
+                                : r.elapsedNanos / 1_000_000
+                        )
+                    );
+                }
+                sb.append(s.problems.isEmpty() ? "] }" : "\n    ] }");
+            }
+            sb.append(ranked.isEmpty() ? "]\n}" : "\n  ]\n}");
+            return sb.toString();
+        }
+    }
+
+    // One copy of the contest for a whole practice room. Students POST their code to
+    // /submit?student=<name>&problem=<name> and poll /status?id=<id> for the verdict,
+    // /scores has everyone's scores and /problems what there is to solve. Scores
+    // are kept the same way as in the REPL, one set of problems per student.
+    // Submissions wait in a FairQueue and jobs workers judge them. A full queue
+    // turns new submissions away with a 429, so a busy room slows down instead of
+    // piling up work the workers will never get to. Nobody has to log in, so it
+    // only listens on loopback unless --bind says otherwise.
+    public static class JudgeServer {
+
+        public static final int DEFAULT_PORT = 8080;
+        public static final int DEFAULT_QUEUE_SIZE = 256;
+        // nobody gets to fill the whole queue by mashing submit
+        private static final int MAX_PENDING_PER_STUDENT = 8;
+        // a solution is a few KB, anything near this is someone being funny
+        private static final int MAX_SOURCE_BYTES = 1 << 20;
+        // finished submissions stick around so their verdict can still be polled,
+        // then they're forgotten, logs and all
+        private static final int KEEP_FINISHED = 1000;
+        private static final long KEEP_FINISHED_NANOS = TimeUnit.MINUTES.toNanos(30);
+
+        public enum Status {
+            QUEUED,
+            RUNNING,
+            DONE,
+        }
+
+        public static class Submission {
+
+            public final long id;
+            public final String student;
+            public final Problem problem;
+            public final Path source;
+            public final long queuedAt = System.nanoTime();
+            public volatile long startedAt, finishedAt;
+            public volatile Status status = Status.QUEUED;
+            public volatile Competition.GradeResult result;
+
+            Submission(long id, String student, Problem problem, Path source) {
+                this.id = id;
+                this.student = student;
+                this.problem = problem;
+                this.source = source;
+            }
         }
 
-        private void saveStudentData(String problemName) {
-            Problem p = getUserSelectedProblem(problemName);
-            if (p == null) {
-                out.println("Invalid problem selected.");
+        // First come first served for each student, and students take turns, so
+        // one student's pile of submissions doesn't hold everyone else up. A student
+        // only has one submission running at a time, since their attempts at a
+        // problem are counted on one Problem.
+        public static class FairQueue {
+
+            private final int capacity;
+            private final Map<String, Deque<Submission>> pending =
+                new HashMap<>();
+            // students with something pending and nothing running, in turn order
+            private final Deque<String> turns = new ArrayDeque<>();
+            private final Set<String> running = new HashSet<>();
+            // places held for submissions whose code is still being uploaded
+            private final Map<String, Integer> reserved = new HashMap<>();
+            private int size = 0;
+
+            public FairQueue(int capacity) {
+                this.capacity = capacity;
+            }
+
+            // Holds a place for one of the student's submissions before anything
+            // is read, false if it's full, for everyone or just for this student.
+            // The place then gets filled by add or given back by cancel.
+            public synchronized boolean reserve(String student) {
+                Deque<Submission> queue = pending.get(student);
+                int mine =
+                    (queue == null ? 0 : queue.size()) +
+                    reserved.getOrDefault(student, 0);
+                if (size >= capacity || mine >= MAX_PENDING_PER_STUDENT) {
+                    return false;
+                }
+                reserved.merge(student, 1, Integer::sum);
+                size++;
+                return true;
+            }
+
+            public synchronized void cancel(String student) {
+                unreserve(student);
+                size--;
             }
 
-            String studentDataPath = p.getStudentDataPath();
-            try {
-                Files.copy(
-                    Path.of(studentDataPath),
-                    Path.of(
-                        StudentSourceDir,
-                        String.format("%s.dat", p.getName().toLowerCase())
-                    )
-                );
-            } catch (IOException e) {
-                System.out.println(e);
-                System.out.println(
-                    "Unable to save student data. See exception message above for more errors"
-                );
+            private void unreserve(String student) {
+                reserved.computeIfPresent(student, (k, n) -> n == 1 ? null : n - 1);
             }
-        }
 
-        private void ls_la() {
-            try {
-                ProcessBuilder pb;
-                if (IsWindows) {
-                    pb = new ProcessBuilder("cmd", "/c", "dir");
-                } else {
-                    pb = new ProcessBuilder("ls", "-la");
+            public synchronized void add(Submission s) {
+                unreserve(s.student);
+                Deque<Submission> queue = pending.computeIfAbsent(
+                    s.student,
+                    k -> new ArrayDeque<>()
+                );
+                queue.addLast(s);
+                if (queue.size() == 1 && !running.contains(s.student)) {
+                    turns.addLast(s.student);
+                    notifyAll();
                 }
-                pb.directory(new File(StudentSourceDir));
-                pb.inheritIO().start().waitFor();
-            } catch (IOException | InterruptedException ex) {}
-        }
+            }
 
-        private void explorer() {
-            String[] cmd = null;
-            if (IsWindows) {
-                cmd = new String[] { "explorer.exe", StudentSourceDir };
-            } else if (IsMac) {
-                cmd = new String[] { "open", StudentSourceDir };
-            } else {
-                cmd = new String[] { "xdg-open", StudentSourceDir };
+            public synchronized Submission take() throws InterruptedException {
+                while (turns.isEmpty()) wait();
+                String student = turns.pollFirst();
+                Submission s = pending.get(student).pollFirst();
+                size--;
+                running.add(student);
+                return s;
             }
 
-            try {
-                ProcessBuilder pb = new ProcessBuilder(cmd);
-                pb.start().waitFor();
-            } catch (IOException | InterruptedException e) {
-                // do nothing, don't care
+            public synchronized void finished(String student) {
+                running.remove(student);
+                if (!pending.get(student).isEmpty()) {
+                    turns.addLast(student);
+                    notifyAll();
+                }
+            }
+
+            public synchronized int size() {
+                return size;
             }
         }
 
-        private String getStudentCodePath(Problem p) {
-            return Path.of(
-                StudentSourceDir,
-                String.format("%s.java", p.name)
-            ).toString();
+        private final Competition competition;
+        private final String bind;
+        private final int port, jobs;
+        private final FairQueue queue;
+        private final Map<Long, Submission> submissions = new ConcurrentHashMap<>();
+        // oldest first, for forgetting them again
+        private final Deque<Submission> finished = new ArrayDeque<>();
+        // student -> lower case problem name -> their copy of it
+        private final Map<String, Map<String, Problem>> teams =
+            new ConcurrentHashMap<>();
+        private final AtomicLong nextId = new AtomicLong(1);
+        private final AtomicLong rejected = new AtomicLong();
+        private final Path uploads = Path.of(CompetitionDirRoot, "submissions");
+
+        // bind is the address to listen on, null for loopback only
+        public JudgeServer(
+            Competition competition,
+            String bind,
+            int port,
+            int jobs,
+            int queueSize
+        ) {
+            this.competition = competition;
+            this.bind = bind;
+            this.port = port;
+            this.jobs = jobs;
+            this.queue = new FairQueue(queueSize);
         }
 
-        private Problem getUserSelectedProblem(String name) {
-            Problem p = problems.getOrDefault(name.trim().toLowerCase(), null);
-            if (p == null) {
-                out.println(
-                    "Invalid problem selected. Could not find problem: " + name
-                );
+        public void start() throws IOException {
+            InetAddress address = bind == null
+                ? InetAddress.getLoopbackAddress()
+                : InetAddress.getByName(bind);
+            HttpServer server = HttpServer.create(
+                new InetSocketAddress(address, port),
+                0
+            );
+            server.createContext("/submit", e -> handle(e, this::submit));
+            server.createContext("/status", e -> handle(e, this::status));
+            server.createContext("/scores", e -> handle(e, this::scores));
+            server.createContext("/problems", e -> handle(e, this::problems));
+            // handlers only queue things or read them, the judging is elsewhere
+            server.setExecutor(
+                Executors.newFixedThreadPool(4, r -> {
+                    Thread t = new Thread(r, "judge-http");
+                    t.setDaemon(true);
+                    return t;
+                })
+            );
+            for (int i = 0; i < jobs; i++) {
+                Thread worker = new Thread(this::work, "judge-worker-" + i);
+                worker.setDaemon(true);
+                worker.start();
             }
-            return p;
+            server.start();
+            System.out.printf(
+                "Judging %d problems at http://%s:%d/ on %d worker%s (queue holds %d).\n",
+                competition.getProblems().size(),
+                bind == null ? "localhost" : bind,
+                port,
+                jobs,
+                jobs == 1 ? "" : "s",
+                queue.capacity
+            );
         }
 
-        private void restart() {
-            try {
-                System.out.println(
-                    "Bootstrapping the lastest version to run on current process..."
-                );
-                (
-                    new ProcessBuilder("java", "UILaunch.java").inheritIO()
-                ).start().waitFor();
-            } catch (Exception e) {}
-            IOUtils.cleanUpTemp();
-            System.exit(0);
+        private Map<String, Problem> team(String student) {
+            return teams.computeIfAbsent(student, k -> {
+                Map<String, Problem> problems = new LinkedHashMap<>();
+                for (Problem p : competition.getSortedProblems()) {
+                    problems.put(p.getName().toLowerCase(), p.freshCopy());
+                }
+                return problems;
+            });
         }
 
-        private void show(String problemName) {
-            Problem p = getUserSelectedProblem(problemName);
-            if (p == null) return;
+        private void work() {
+            while (true) {
+                Submission s;
+                try {
+                    s = queue.take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                try {
+                    s.startedAt = System.nanoTime();
+                    s.status = Status.RUNNING;
+                    s.result = competition.grade(s.problem, s.source.toString(), true);
+                } catch (RuntimeException e) {
+                    s.result = new Competition.GradeResult(
+                        s.problem,
+                        Verdict.RUNTIME_ERROR,
+                        -1,
+                        e.toString(),
+                        null
+                    );
+                } finally {
+                    s.finishedAt = System.nanoTime();
+                    s.status = Status.DONE;
+                    queue.finished(s.student);
+                    IOUtils.delete(s.source.getParent());
+                    retire(s);
+                }
+            }
+        }
 
-            try {
-                List<String> lines = Files.readAllLines(
-                    Path.of(
-                        StudentSourceDir,
-                        String.format("%s.java", p.getName())
-                    )
-                );
-                lines.forEach(l -> out.println(l));
-            } catch (IOException e) {}
+        private synchronized void retire(Submission s) {
+            finished.addLast(s);
+            while (
+                finished.size() > KEEP_FINISHED ||
+                s.finishedAt - finished.peekFirst().finishedAt > KEEP_FINISHED_NANOS
+            ) {
+                submissions.remove(finished.pollFirst().id);
+            }
         }
 
-        private void showStudentData(String problemName) {
-            Problem p = getUserSelectedProblem(problemName);
-            if (p == null) return;
+        // returns the status code, the response has already been written
+        private interface Handler {
+            int handle(HttpExchange exchange, Map<String, String> query)
+                throws IOException;
+        }
+
+        private void handle(HttpExchange exchange, Handler handler)
+            throws IOException {
             try {
-                if (
-                    p.studentDataPath == null ||
-                    !Files.exists(Path.of(p.studentDataPath))
-                ) {
-                    System.out.printf(
-                        "Problem <%s> does not have a data file.\n",
-                        p.getName()
-                    );
-                    return;
-                }
+                handler.handle(exchange, query(exchange.getRequestURI()));
+            } catch (IOException | RuntimeException e) {
+                respond(exchange, 500, "{ \"error\": " + Headless.quote(e.toString()) + " }");
+            } finally {
+                exchange.close();
+            }
+        }
 
-                List<String> lines = Files.readAllLines(
-                    Path.of(p.studentDataPath)
+        private static Map<String, String> query(URI uri) {
+            Map<String, String> params = new HashMap<>();
+            String raw = uri.getRawQuery();
+            if (raw == null) return params;
+            for (String pair : raw.split("&")) {
+                String[] kv = pair.split("=", 2);
+                params.put(
+                    URLDecoder.decode(kv[0], StandardCharsets.UTF_8),
+                    kv.length > 1 ? URLDecoder.decode(kv[1], StandardCharsets.UTF_8) : ""
                 );
-                lines.forEach(l -> out.println(l));
-            } catch (IOException e) {}
+            }
+            return params;
         }
 
-        private void ansiClear() {
-            System.out.print("\033[H\033[2J");
-            System.out.flush();
+        private static int respond(HttpExchange exchange, int status, String json)
+            throws IOException {
+            byte[] body = (json + "\n").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+            return status;
         }
 
-        private void pbClear() {
+        private static int error(HttpExchange exchange, int status, String message)
+            throws IOException {
+            return respond(exchange, status, "{ \"error\": " + Headless.quote(message) + " }");
+        }
+
+        private int submit(HttpExchange exchange, Map<String, String> query)
+            throws IOException {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                return error(exchange, 405, "Submissions have to be POSTed");
+            }
+            String student = query.get("student");
+            String problemName = query.get("problem");
+            // the name ends up in a path, so keep it boring
+            if (student == null || !student.matches("[A-Za-z0-9_.-]{1,64}")) {
+                return error(exchange, 400, "Need a student name (letters, digits, _ . -)");
+            }
+            // the team itself only appears once it has something queued, so
+            // rejected requests don't leave empty rows on /scores
+            Problem problem = problemName == null
+                ? null
+                : competition.getProblem(problemName.toLowerCase());
+            if (problem == null) {
+                return error(exchange, 404, "No problem named " + problemName);
+            }
+
+            String length = exchange.getRequestHeaders().getFirst("Content-Length");
             try {
-                ProcessBuilder pb;
-                if (IsWindows) {
-                    pb = new ProcessBuilder("cmd", "/c", "cls");
-                } else {
-                    pb = new ProcessBuilder("clear");
+                if (length != null && Long.parseLong(length) > MAX_SOURCE_BYTES) {
+                    return tooLarge(exchange);
                 }
-                pb.inheritIO().start().waitFor();
-            } catch (IOException | InterruptedException ex) {}
-        }
+            } catch (NumberFormatException e) {
+                return error(exchange, 400, "Bad Content-Length " + length);
+            }
+            // a full queue shouldn't have to read the upload just to say no
+            if (!queue.reserve(student)) {
+                rejected.incrementAndGet();
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                return error(exchange, 429, "The queue is full, try again in a second");
+            }
 
-        private void clear() {
+            long id = nextId.getAndIncrement();
+            Path source = uploads.resolve(
+                String.valueOf(id)
+            ).resolve(problem.getName() + ".java");
+            boolean queued = false;
             try {
-                ansiClear();
-                pbClear();
-            } catch (Exception e) {
-                // Fallback: print newlines
-                System.out.println("Fallback: write a ton of new lines");
-                for (int i = 0; i < 50; i++) {
-                    System.out.println();
+                byte[] code;
+                try (InputStream body = exchange.getRequestBody()) {
+                    code = body.readNBytes(MAX_SOURCE_BYTES + 1);
+                }
+                if (code.length > MAX_SOURCE_BYTES) return tooLarge(exchange);
+                Files.createDirectories(source.getParent());
+                Files.write(source, code);
+                Submission s = new Submission(
+                    id,
+                    student,
+                    team(student).get(problemName.toLowerCase()),
+                    source
+                );
+                submissions.put(id, s);
+                queue.add(s);
+                queued = true;
+            } finally {
+                if (!queued) {
+                    queue.cancel(student);
+                    IOUtils.delete(source.getParent());
                 }
             }
+            return respond(
+                exchange,
+                202,
+                String.format(
+                    "{ \"id\": %d, \"status\": \"%s\", \"queued\": %d }",
+                    id,
+                    Status.QUEUED,
+                    queue.size()
+                )
+            );
         }
 
-        private void exec(String... command) {
+        private static int tooLarge(HttpExchange exchange) throws IOException {
+            return error(
+                exchange,
+                413,
+                "Source files are capped at " + MAX_SOURCE_BYTES / 1024 + " KB"
+            );
+        }
+
+        private int status(HttpExchange exchange, Map<String, String> query)
+            throws IOException {
+            Submission s;
             try {
-                (new ProcessBuilder(command).inheritIO()).start().waitFor();
-            } catch (IOException e) {
-            } catch (InterruptedException e) {
+                s = submissions.get(Long.parseLong(query.getOrDefault("id", "")));
+            } catch (NumberFormatException e) {
+                s = null;
+            }
+            if (s == null) {
+                return error(exchange, 404, "No such submission (or it's long done)");
             }
-        }
 
-        private void judge(String problemName) {
-            Problem p = getUserSelectedProblem(problemName);
-            if (p == null) return;
+            StringBuilder sb = new StringBuilder(
+                String.format(
+                    "{ \"id\": %d, \"student\": %s, \"problem\": %s, \"status\": \"%s\"",
+                    s.id,
+                    Headless.quote(s.student),
+                    Headless.quote(s.problem.getName()),
+                    s.status
+                )
+            );
+            Competition.GradeResult r = s.result;
+            if (s.status == Status.DONE && r != null) {
+                sb.append(
+                    String.format(
+                        ", \"verdict\": \"%s\", \"score\": %d, \"waitMs\": %d, \"timeMs\": %d, \"log\": %s",
+                        r.verdict.name(),
+                        s.problem.getScore(),
+                        (s.startedAt - s.queuedAt) / 1_000_000,
+                        (s.finishedAt - s.startedAt) / 1_000_000,
+                        Headless.quote(r.log)
+                    )
+                );
+            }
+            return respond(exchange, 200, sb.append(" }").toString());
+        }
 
-            if (p.accepted) {
-                out.println("Problem already accepted.");
-            } else {
-                if (p.judge(getStudentCodePath(p))) {
-                    System.out.println("Solution Accepted.");
-                } else {
-                    System.out.println("Solution Denied.");
-                }
+        private int scores(HttpExchange exchange, Map<String, String> query)
+            throws IOException {
+            List<Map.Entry<String, Map<String, Problem>>> ranked = teams
+                .entrySet()
+                .stream()
+                .sorted(
+                    Comparator.comparingInt(
+                        (Map.Entry<String, Map<String, Problem>> e) -> score(e.getValue())
+                    )
+                        .reversed()
+                        .thenComparing(Map.Entry::getKey)
+                )
+                .toList();
+            StringBuilder sb = new StringBuilder(
+                String.format(
+                    "{ \"queued\": %d, \"rejected\": %d, \"students\": [",
+                    queue.size(),
+                    rejected.get()
+                )
+            );
+            for (int i = 0; i < ranked.size(); i++) {
+                Map<String, Problem> problems = ranked.get(i).getValue();
+                sb.append(i == 0 ? "\n" : ",\n");
+                sb.append(
+                    String.format(
+                        "  { \"student\": %s, \"score\": %d, \"problems\": { ",
+                        Headless.quote(ranked.get(i).getKey()),
+                        score(problems)
+                    )
+                );
+                sb.append(
+                    problems
+                        .values()
+                        .stream()
+                        .map(p ->
+                            String.format(
+                                "%s: { \"score\": %d, \"attempts\": %d }",
+                                Headless.quote(p.getName()),
+                                p.getScore(),
+                                p.getNumberTries()
+                            )
+                        )
+                        .collect(Collectors.joining(", "))
+                );
+                sb.append(" } }");
             }
+            sb.append(ranked.isEmpty() ? "] }" : "\n] }");
+            return respond(exchange, 200, sb.toString());
         }
 
-        private void run(String problemName) {
-            Problem p = getUserSelectedProblem(problemName);
-            if (p == null) return;
-            p.run(getStudentCodePath(p));
+        private static int score(Map<String, Problem> problems) {
+            return problems.values().stream().mapToInt(Problem::getScore).sum();
         }
 
-        private void check(String problemName) {
-            Problem p = getUserSelectedProblem(problemName);
-            if (p == null) return;
-            if (p.check(getStudentCodePath(p))) {
-                out.println("Correct Solution.");
-            } else {
-                out.println("Incorrect Solution");
-            }
+        private int problems(HttpExchange exchange, Map<String, String> query)
+            throws IOException {
+            return respond(
+                exchange,
+                200,
+                competition
+                    .getSortedProblems()
+                    .stream()
+                    .map(p -> Headless.quote(p.getName()))
+                    .collect(Collectors.joining(", ", "[", "]"))
+            );
         }
     }
 
@@ -1470,7 +7159,15 @@ public class UILaunch {
                 DownloadDir,
                 availCompetitions.get(choice) + "Programming.zip"
             );
-            if (Files.exists(expectedPath)) {
+            if (
+                Files.exists(expectedPath) &&
+                !matchesExpectedHash(availCompetitions.get(choice), expectedPath)
+            ) {
+                System.out.printf(
+                    "Previously downloaded file for %s doesn't match its SHA-256, downloading it again.\n",
+                    availCompetitions.get(choice)
+                );
+            } else if (Files.exists(expectedPath)) {
                 System.out.printf(
                     "Found previously downloaded file for %s at %s. Use this file? (y/n) ",
                     availCompetitions.get(choice),
@@ -1491,6 +7188,20 @@ public class UILaunch {
         return null;
     }
 
+    private static boolean matchesExpectedHash(
+        CompetitionRecord record,
+        Path zip
+    ) {
+        try {
+            String actual = IOUtils.sha256(zip);
+            if (record.sha256 != null) return actual.equalsIgnoreCase(record.sha256);
+            record.pinSha256(actual);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
     private static String detectCompetitionZip(String[] args) {
         String shareDir = IOUtils.checkDir(CurrentDir, "UILCS", "Programming");
         String srcDir = IOUtils.checkDir(
@@ -1542,11 +7253,124 @@ public class UILaunch {
         return null;
     }
 
+    // Step 2: Inflate the zip file to the App Data directory, or with
+    // LAZY_EXTRACTION just look inside it and extract files as they're used.
+    // Either way it goes into the contest cache, so a contest that was opened
+    // before doesn't need extracting again. Nothing reads the whole zip first:
+    // the cache is keyed on its size and date and checks files by CRC-32 (see
+    // ContestCache). The zip is mounted while the cache folder is found, only
+    // the folders the index needs are extracted before it's built, and problems
+    // get ready in the background after the prompt is up. Anything that stops the
+    // contest from opening is thrown, for the caller to report (and exit) its way.
+    public static Competition openCompetition(String competitionZip)
+        throws IOException {
+        try {
+            return extractAndIndex(competitionZip);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static Competition extractAndIndex(String competitionZip)
+        throws IOException {
+        Path zipPath = Path.of(competitionZip);
+        CompletableFuture<Path> mounting = CompletableFuture.supplyAsync(() -> {
+            if (!LAZY_EXTRACTION) return null;
+            try {
+                return LazyContest.open(zipPath);
+            } catch (IOException e) {
+                System.out.println(e);
+                return null;
+            }
+        });
+
+        String cacheKey = null;
+        Path extractTo = Path.of(CompetitionDirRoot);
+        try {
+            cacheKey = ContestCache.key(zipPath);
+            extractTo = ContestCache.open(cacheKey);
+        } catch (IOException e) {
+            System.out.println(e);
+            cacheKey = null;
+        }
+
+        Competition competition;
+        // whatever extraction is still going on once the index is built
+        CompletableFuture<Void> extracting = CompletableFuture.completedFuture(
+            null
+        );
+        Path lazyRoot = mounting.join();
+        if (lazyRoot != null) {
+            long start = System.nanoTime();
+            LazyContest.extractTo(extractTo, cacheKey);
+            CompetitionDir = LazyContest.localPath(lazyRoot);
+            IOUtils.createDirIfAbsent(Path.of(CompetitionDirRoot));
+            System.out.println("Reading competition data from the zip...");
+            competition = Competition.ReadFrom(lazyRoot);
+            System.out.printf(
+                "Indexed the zip in %d ms, files will be extracted to \n\t%s\nas they're needed.\n",
+                (System.nanoTime() - start) / 1_000_000,
+                extractTo
+            );
+        } else if (cacheKey != null && ContestCache.isComplete(cacheKey, zipPath)) {
+            System.out.printf(
+                "Using previously extracted competition files at: \n\t%s\n",
+                extractTo
+            );
+            IOUtils.findCompetitionDir(extractTo.toString());
+            System.out.println("Reading competition data...");
+            competition = Competition.ReadFromDir();
+        } else {
+            System.out.printf(
+                "Unzipping competition files to: \n\t%s\n",
+                extractTo
+            );
+            IOUtils.unzip(
+                competitionZip,
+                extractTo.toString(),
+                IOUtils::isContestData
+            );
+
+            // Step 3: Read Competition Data and set it up, while the packets and
+            // such finish extracting
+            Path restTo = extractTo;
+            String key = cacheKey;
+            extracting = CompletableFuture.runAsync(() -> {
+                try {
+                    IOUtils.extract(zipPath, restTo, name ->
+                        !IOUtils.isContestData(name)
+                    );
+                    if (key != null) ContestCache.markComplete(key, zipPath);
+                } catch (IOException | InterruptedException e) {
+                    // only extras, and next launch extracts everything again
+                }
+            });
+            System.out.println("Reading competition data...");
+            competition = Competition.ReadFromDir();
+        }
+        if (cacheKey != null) {
+            String key = cacheKey;
+            extracting.thenRun(() -> ContestCache.evict(key));
+        }
+
+        return competition;
+    }
+
     @SuppressWarnings("ConvertToTryWithResources")
     public static void main(String[] args) {
+        SelfCache.reexec(args);
+        if (DUMP_TIMINGS_AT_EXIT) Timings.dumpAtExit();
+        if (Headless.isRequested(args)) {
+            int status = Headless.main(args);
+            IOUtils.cleanUpTemp();
+            System.exit(status);
+        }
+
         Scanner terminal = new Scanner(System.in);
         IOUtils.createDirIfAbsent(Path.of(CompetitionDirRoot));
         IOUtils.createDirIfAbsent(Path.of(DownloadDir));
+        InProcessCompiler.warmUp();
+        SelfCache.populateAsync();
 
         // Step 1: Need to find the zip file containing all the data
         // these terms are in the new naming format, and won't work past 2025 district
@@ -1565,17 +7389,13 @@ public class UILaunch {
             exitProgram(-1, "Invalid Path. Exiting Program");
         }
 
-        // Step 2: Inflate the zip file to the App Data directory
-        System.out.printf(
-            "Unzipping competition files to: \n\t%s\n",
-            CompetitionDirRoot
-        );
-        IOUtils.unzip(competitionZip, CompetitionDirRoot);
-
-        // Step 3: Read Competition Data and set it up
-        System.out.println("Reading competition data...");
-        Competition competition = Competition.ReadFromDir();
-
+        long pipelineStart = System.nanoTime();
+        Competition competition = null;
+        try {
+            competition = openCompetition(competitionZip);
+        } catch (IOException e) {
+            exitProgram(-1, "%s\n", e.getMessage());
+        }
         System.out.printf(
             "Read %d problems from data.\n",
             competition.getProblems().size()
@@ -1584,7 +7404,12 @@ public class UILaunch {
 
         // Step 4: Create blank java files for student use
         competition.setup();
+        competition.prepareAsync();
 
+        System.out.printf(
+            "Ready in %d ms.\n",
+            (System.nanoTime() - pipelineStart) / 1_000_000
+        );
         competition.run(System.out);
 
         System.out.println("\n\n\n");
@@ -0,0 +1,1078 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.lang.ProcessBuilder.Redirect;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+// The launcher's test and benchmark harnesses, kept out of UILaunch.java so a
+// plain `java UILaunch.java` doesn't compile them on every start. They use the
+// launcher's classes, so compile those first and run this from source next to it:
+//
+//     javac -d build UILaunch.java
+//     java -cp build UILaunchBench.java --bench [...]
+//     java -cp build UILaunchBench.java --load-test <server url> --src <dir> [...]
+//     java -cp build UILaunchBench.java --download-test
+//
+// Extending UILaunch is only so its nested classes resolve without the prefix.
+public class UILaunchBench extends UILaunch {
+
+    public static void main(String[] args) {
+        if (args.length > 0 && args[0].startsWith("--bench")) {
+            System.exit(Bench.main(args));
+        }
+        if (args.length > 0 && args[0].equals("--load-test")) {
+            System.exit(LoadTest.main(args));
+        }
+        if (args.length > 0 && args[0].equals("--download-test")) {
+            System.exit(DownloadTest.main(args));
+        }
+        System.err.println(
+            "Usage: java -cp build UILaunchBench.java --bench | --load-test | --download-test [...]"
+        );
+        System.exit(2);
+    }
+
+    // java -cp build UILaunchBench.java --download-test
+    // Runs the Downloader against stand-in hosts on loopback, since the real ones
+    // can't be made to misbehave on cue: ranged and plain downloads, resuming after
+    // a dropped connection, a file that changes halfway, a host that answers with
+    // the wrong range, a bad hash, and with two hosts, one that's slow to answer
+    // and one that stops sending halfway. Exits 0 if every case passed.
+    public static class DownloadTest {
+
+        // a bit over two chunks, so there's a short last one
+        private static final int SIZE = 2 * 4 * 1024 * 1024 + 12345;
+
+        private interface Case {
+            void run(Path dir) throws Exception;
+        }
+
+        // serves data at /file, with Range and If-Range like a real host
+        private static class StandIn implements AutoCloseable {
+
+            final HttpServer server;
+            final AtomicInteger requests = new AtomicInteger();
+            volatile byte[] data;
+            volatile String etag = "\"v1\"";
+            volatile boolean ranges = true;
+            // added to the first and last byte of every Content-Range sent
+            volatile long skew = 0;
+            // a range starting here gets the connection dropped halfway
+            volatile long dropAt = -1;
+            // swaps in other data (and ETag) after this many requests
+            volatile int changeAfter = -1;
+            volatile long headerDelayMillis = 0;
+            // sends the headers and a little of the body, then nothing
+            volatile boolean stalls = false;
+
+            StandIn(byte[] data) throws IOException {
+                this.data = data;
+                server = HttpServer.create(
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                    0
+                );
+                server.createContext("/file", this::handle);
+                server.setExecutor(Executors.newCachedThreadPool());
+                server.start();
+            }
+
+            URI uri() {
+                return URI.create(
+                    String.format(
+                        "http://127.0.0.1:%d/file",
+                        server.getAddress().getPort()
+                    )
+                );
+            }
+
+            private void handle(HttpExchange exchange) throws IOException {
+                if (requests.incrementAndGet() - 1 == changeAfter) {
+                    data = randomBytes(data.length, 7);
+                    etag = "\"v2\"";
+                }
+                try {
+                    Thread.sleep(headerDelayMillis);
+                } catch (InterruptedException e) {
+                    return; // shutting down
+                }
+                byte[] body = data;
+                String range = exchange.getRequestHeaders().getFirst("Range");
+                String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+                if (!ranges || (ifRange != null && !ifRange.equals(etag))) {
+                    range = null;
+                }
+                exchange.getResponseHeaders().set("ETag", etag);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    if (range == null) {
+                        exchange.sendResponseHeaders(200, body.length);
+                        out.write(body);
+                        return;
+                    }
+                    String[] bounds = range.substring("bytes=".length()).split("-");
+                    int from = Integer.parseInt(bounds[0]);
+                    int to = Math.min(Integer.parseInt(bounds[1]), body.length - 1);
+                    exchange
+                        .getResponseHeaders()
+                        .set(
+                            "Content-Range",
+                            String.format(
+                                "bytes %d-%d/%d",
+                                from + skew,
+                                to + skew,
+                                body.length
+                            )
+                        );
+                    exchange.sendResponseHeaders(206, to - from + 1);
+                    if (stalls && to > from) {
+                        out.write(body, from, 1);
+                        out.flush();
+                        try {
+                            Thread.sleep(Long.MAX_VALUE);
+                        } catch (InterruptedException e) {
+                            throw new IOException("stalled on purpose");
+                        }
+                    }
+                    if (from == dropAt) {
+                        out.write(body, from, (to - from + 1) / 2);
+                        out.flush();
+                        throw new IOException("dropped on purpose");
+                    }
+                    out.write(body, from, to - from + 1);
+                }
+            }
+
+            @Override
+            public void close() {
+                server.stop(0);
+                ((ExecutorService) server.getExecutor()).shutdownNow();
+                MirrorStats.forget(uri());
+            }
+        }
+
+        private static byte[] randomBytes(int size, long seed) {
+            byte[] bytes = new byte[size];
+            new Random(seed).nextBytes(bytes);
+            return bytes;
+        }
+
+        // IOUtils.sha256(byte[]...) separates its parts, this is the file's hash
+        private static String hashOf(byte[] data) throws NoSuchAlgorithmException {
+            return HexFormat.of().formatHex(
+                MessageDigest.getInstance("SHA-256").digest(data)
+            );
+        }
+
+        private static void expect(boolean condition, String what) {
+            if (!condition) throw new AssertionError(what);
+        }
+
+        private static void expectFailure(Callable<?> download, String what)
+            throws Exception {
+            try {
+                download.call();
+            } catch (IOException e) {
+                return;
+            }
+            throw new AssertionError(what);
+        }
+
+        public static int main(String[] args) {
+            Map<String, Case> cases = new LinkedHashMap<>();
+            cases.put("ranged download", DownloadTest::ranged);
+            cases.put("host without ranges", DownloadTest::withoutRanges);
+            cases.put("resume after a dropped connection", DownloadTest::resume);
+            cases.put("file changes halfway", DownloadTest::changesHalfway);
+            cases.put("wrong Content-Range", DownloadTest::wrongRange);
+            cases.put("bad hash", DownloadTest::badHash);
+            cases.put("hedges a slow host", DownloadTest::hedgesSlowHost);
+            cases.put("fails over from a stalled body", DownloadTest::stalledBody);
+
+            int failed = 0;
+            for (Map.Entry<String, Case> c : cases.entrySet()) {
+                Path dir = null;
+                try {
+                    dir = Files.createTempDirectory("csuil-download-test");
+                    c.getValue().run(dir);
+                    System.out.printf("ok    %s\n", c.getKey());
+                } catch (Exception | AssertionError e) {
+                    failed++;
+                    System.out.printf("FAIL  %s: %s\n", c.getKey(), e);
+                } finally {
+                    if (dir != null) IOUtils.delete(dir);
+                }
+            }
+            MirrorStats.save();
+            System.out.printf(
+                "%d of %d download cases passed\n",
+                cases.size() - failed,
+                cases.size()
+            );
+            return failed == 0 ? 0 : 1;
+        }
+
+        private static void ranged(Path dir) throws Exception {
+            byte[] data = randomBytes(SIZE, 1);
+            try (StandIn host = new StandIn(data)) {
+                Path target = dir.resolve("contest.zip");
+                String sha = Downloader.download(host.uri(), target, null);
+                expect(Arrays.equals(Files.readAllBytes(target), data), "same bytes");
+                expect(sha.equals(hashOf(data)), "returns the SHA-256");
+                expect(host.requests.get() == 4, "a probe and three chunks");
+            }
+        }
+
+        private static void withoutRanges(Path dir) throws Exception {
+            byte[] data = randomBytes(SIZE, 2);
+            try (StandIn host = new StandIn(data)) {
+                host.ranges = false;
+                Path target = dir.resolve("contest.zip");
+                Downloader.download(host.uri(), target, hashOf(data));
+                expect(Arrays.equals(Files.readAllBytes(target), data), "same bytes");
+            }
+        }
+
+        private static void resume(Path dir) throws Exception {
+            byte[] data = randomBytes(SIZE, 3);
+            try (StandIn host = new StandIn(data)) {
+                Path target = dir.resolve("contest.zip");
+                host.dropAt = 4 * 1024 * 1024;
+                expectFailure(
+                    () -> Downloader.download(host.uri(), target, null),
+                    "fails while the host keeps dropping a chunk"
+                );
+                expect(
+                    !Files.exists(target) &&
+                    Files.exists(Path.of(target + ".part.state")),
+                    "keeps the finished chunks"
+                );
+                host.dropAt = -1;
+                host.requests.set(0);
+                Downloader.download(host.uri(), target, hashOf(data));
+                expect(Arrays.equals(Files.readAllBytes(target), data), "same bytes");
+                expect(host.requests.get() == 2, "only fetches the missing chunk");
+            }
+        }
+
+        private static void changesHalfway(Path dir) throws Exception {
+            try (StandIn host = new StandIn(randomBytes(SIZE, 4))) {
+                Path target = dir.resolve("contest.zip");
+                host.changeAfter = 2; // the probe and one chunk see the old file
+                expectFailure(
+                    () -> Downloader.download(host.uri(), target, null),
+                    "doesn't mix two versions of the file"
+                );
+                expect(!Files.exists(target), "no finished file");
+            }
+        }
+
+        private static void wrongRange(Path dir) throws Exception {
+            try (StandIn host = new StandIn(randomBytes(SIZE, 5))) {
+                Path target = dir.resolve("contest.zip");
+                host.skew = 1;
+                expectFailure(
+                    () -> Downloader.download(host.uri(), target, null),
+                    "doesn't take bytes from the wrong offset"
+                );
+                expect(!Files.exists(target), "no finished file");
+            }
+        }
+
+        private static void hedgesSlowHost(Path dir) throws Exception {
+            byte[] data = randomBytes(SIZE, 8);
+            try (
+                StandIn slow = new StandIn(data);
+                StandIn fast = new StandIn(data)
+            ) {
+                slow.headerDelayMillis = 3_000;
+                Path target = dir.resolve("contest.zip");
+                long start = System.nanoTime();
+                Downloader.download(
+                    List.of(slow.uri(), fast.uri()),
+                    target,
+                    hashOf(data)
+                );
+                long millis = (System.nanoTime() - start) / 1_000_000;
+                expect(Arrays.equals(Files.readAllBytes(target), data), "same bytes");
+                expect(millis < 3_000, "didn't wait for the slow host");
+            }
+        }
+
+        private static void stalledBody(Path dir) throws Exception {
+            byte[] data = randomBytes(SIZE, 9);
+            try (
+                StandIn stalls = new StandIn(data);
+                StandIn fine = new StandIn(data)
+            ) {
+                stalls.stalls = true;
+                Path target = dir.resolve("contest.zip");
+                Downloader.download(
+                    List.of(stalls.uri(), fine.uri()),
+                    target,
+                    hashOf(data)
+                );
+                expect(Arrays.equals(Files.readAllBytes(target), data), "same bytes");
+                expect(stalls.requests.get() > 1, "went to the stalling host first");
+            }
+        }
+
+        private static void badHash(Path dir) throws Exception {
+            try (StandIn host = new StandIn(randomBytes(SIZE, 6))) {
+                Path target = dir.resolve("contest.zip");
+                expectFailure(
+                    () -> Downloader.download(host.uri(), target, "00".repeat(32)),
+                    "rejects a file with the wrong hash"
+                );
+                expect(!Files.exists(target), "no finished file");
+            }
+        }
+    }
+
+    // java -cp build UILaunchBench.java --load-test <server url> --src <dir> [--students <n>]
+    //     [--submissions <n>]
+    // Pretends to be a room of students hammering a JudgeServer: every student
+    // submits the files in dir (named <Problem>.java) in turn, backs off when the
+    // queue is full and polls until each verdict is in. Reports throughput and how
+    // long submissions took from POST to verdict.
+    public static class LoadTest {
+
+        private static final Pattern ID = Pattern.compile("\"id\": (\\d+)");
+        private static final Pattern STATUS = Pattern.compile(
+            "\"status\": \"(\\w+)\""
+        );
+        private static final Pattern VERDICT = Pattern.compile(
+            "\"verdict\": \"(\\w+)\""
+        );
+        private static final long POLL_INTERVAL_MS = 50;
+
+        private static String find(Pattern pattern, String json) {
+            Matcher m = pattern.matcher(json);
+            return m.find() ? m.group(1) : null;
+        }
+
+        public static int main(String[] args) {
+            String url = null, src = null;
+            int students = 20, perStudent = 5;
+            try {
+                for (int i = 0; i + 1 < args.length; i += 2) {
+                    switch (args[i]) {
+                        case "--load-test" -> url = args[i + 1];
+                        case "--src" -> src = args[i + 1];
+                        case "--students" -> students = Integer.parseInt(args[i + 1]);
+                        case "--submissions" -> perStudent = Integer.parseInt(args[i + 1]);
+                        default -> throw new IllegalArgumentException(args[i]);
+                    }
+                }
+            } catch (IllegalArgumentException e) {
+                url = null;
+            }
+            if (url == null || src == null) {
+                System.err.println(
+                    "Usage: java -cp build UILaunchBench.java --load-test <server url> --src <dir> [--students <n>] [--submissions <n>]"
+                );
+                return 2;
+            }
+
+            List<Path> files;
+            try (Stream<Path> list = Files.list(Path.of(src))) {
+                files = list
+                    .filter(f -> f.getFileName().toString().endsWith(".java"))
+                    .sorted()
+                    .toList();
+            } catch (IOException e) {
+                System.err.println(e);
+                return 2;
+            }
+            if (files.isEmpty()) {
+                System.err.println("No .java files in " + src);
+                return 2;
+            }
+
+            String base = url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+            HttpClient client = HttpClient.newHttpClient();
+            List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+            Map<String, AtomicInteger> verdicts = new ConcurrentHashMap<>();
+            AtomicInteger backoffs = new AtomicInteger(), failures = new AtomicInteger();
+            int total = students * perStudent;
+            System.out.printf(
+                "%d students sending %d submissions each to %s...\n",
+                students,
+                perStudent,
+                base
+            );
+
+            ExecutorService pool = Executors.newFixedThreadPool(students);
+            long start = System.nanoTime();
+            int submissions = perStudent;
+            for (int i = 0; i < students; i++) {
+                String student = String.format("student-%02d", i + 1);
+                int offset = i;
+                pool.execute(() -> {
+                    for (int n = 0; n < submissions; n++) {
+                        Path file = files.get((offset + n) % files.size());
+                        String problem = file.getFileName().toString().replace(".java", "");
+                        try {
+                            long sent = System.nanoTime();
+                            String verdict = submitAndWait(
+                                client,
+                                base,
+                                student,
+                                problem,
+                                file,
+                                backoffs
+                            );
+                            latencies.add(System.nanoTime() - sent);
+                            verdicts
+                                .computeIfAbsent(verdict, k -> new AtomicInteger())
+                                .incrementAndGet();
+                        } catch (IOException | InterruptedException e) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                });
+            }
+            pool.shutdown();
+            try {
+                pool.awaitTermination(1, TimeUnit.HOURS);
+            } catch (InterruptedException e) {}
+            long elapsed = System.nanoTime() - start;
+
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+            System.out.printf(
+                "%d of %d submissions judged in %.1f s (%.1f submissions/s), %d failed\n",
+                sorted.length,
+                total,
+                elapsed / 1e9,
+                sorted.length / (elapsed / 1e9),
+                failures.get()
+            );
+            if (sorted.length > 0) {
+                System.out.printf(
+                    "POST to verdict: median %d ms, p95 %d ms, max %d ms\n",
+                    sorted[sorted.length / 2] / 1_000_000,
+                    sorted[(int) Math.min(sorted.length - 1, Math.ceil(sorted.length * 0.95) - 1)] / 1_000_000,
+                    sorted[sorted.length - 1] / 1_000_000
+                );
+            }
+            System.out.printf("Turned away by a full queue %d times\n", backoffs.get());
+            new TreeMap<>(verdicts).forEach((v, n) ->
+                System.out.printf("%10s  %d\n", v, n.get())
+            );
+            return failures.get() == 0 ? 0 : 1;
+        }
+
+        private static String submitAndWait(
+            HttpClient client,
+            String base,
+            String student,
+            String problem,
+            Path file,
+            AtomicInteger backoffs
+        ) throws IOException, InterruptedException {
+            URI submit = URI.create(
+                String.format("%s/submit?student=%s&problem=%s", base, student, problem)
+            );
+            HttpResponse<String> response;
+            while (true) {
+                response = client.send(
+                    HttpRequest.newBuilder(submit)
+                        .POST(HttpRequest.BodyPublishers.ofFile(file))
+                        .build(),
+                    HttpResponse.BodyHandlers.ofString()
+                );
+                if (response.statusCode() != 429) break;
+                backoffs.incrementAndGet();
+                long seconds = response
+                    .headers()
+                    .firstValueAsLong("Retry-After")
+                    .orElse(1);
+                Thread.sleep(seconds * 1000);
+            }
+            String id = find(ID, response.body());
+            if (response.statusCode() != 202 || id == null) {
+                throw new IOException("Submit failed: " + response.body());
+            }
+
+            URI status = URI.create(base + "/status?id=" + id);
+            while (true) {
+                Thread.sleep(POLL_INTERVAL_MS);
+                String body = client
+                    .send(
+                        HttpRequest.newBuilder(status).build(),
+                        HttpResponse.BodyHandlers.ofString()
+                    )
+                    .body();
+                if ("DONE".equals(find(STATUS, body))) {
+                    return nullish(find(VERDICT, body), "UNKNOWN");
+                }
+            }
+        }
+    }
+
+    // java -cp build UILaunchBench.java --bench [--size small|medium|large] [--iterations <n>]
+    //     [--only <name>,...] [--save <file>] [--baseline <file>]
+    // Times the launcher's hot paths (levenshtein, isSameOutput, unzipping,
+    // listFiles, compiling and forking) on made up data of the given size. Every
+    // case warms up first, then each sample is one call, or for the quick ones
+    // enough calls back to back to fill a millisecond, and the table shows
+    // percentiles of the time per call. --save writes the numbers to a plain text
+    // file and --baseline compares this run's medians against one, so before and
+    // after a change is two runs (or a diff of the two files).
+    public static class Bench {
+
+        public enum Size {
+            SMALL("small", 1),
+            MEDIUM("medium", 8),
+            LARGE("large", 64);
+
+            private final String canonicalName;
+            private final int scale;
+
+            private Size(String canonicalName, int scale) {
+                this.canonicalName = canonicalName;
+                this.scale = scale;
+            }
+
+            @Override
+            public String toString() {
+                return canonicalName;
+            }
+        }
+
+        private interface Op {
+            void run() throws Exception;
+        }
+
+        private static class Case {
+
+            private final String name;
+            private final int samples;
+            // untimed, before every sample; cases without one are batched
+            private final Op setup;
+            private final Op op;
+
+            private Case(String name, int samples, Op setup, Op op) {
+                this.name = name;
+                this.samples = samples;
+                this.setup = setup;
+                this.op = op;
+            }
+        }
+
+        private static class Stats {
+
+            private final int samples;
+            private final long min, p50, p90, p99, max;
+
+            private Stats(long[] perCall) {
+                Arrays.sort(perCall);
+                samples = perCall.length;
+                min = perCall[0];
+                p50 = percentile(perCall, 0.50);
+                p90 = percentile(perCall, 0.90);
+                p99 = percentile(perCall, 0.99);
+                max = perCall[perCall.length - 1];
+            }
+
+            private static long percentile(long[] sorted, double p) {
+                int i = (int) Math.ceil(p * sorted.length) - 1;
+                return sorted[Math.max(0, Math.min(sorted.length - 1, i))];
+            }
+        }
+
+        private static final String USAGE =
+            "Usage: java -cp build UILaunchBench.java --bench [--size small|medium|large] [--iterations <n>] [--only <name>,...] [--save <file>] [--baseline <file>]";
+        private static final int DEFAULT_SAMPLES = 50;
+        private static final int FORK_SAMPLES = 15;
+        private static final long SAMPLE_NANOS = 1_000_000;
+        private static final long WARMUP_NANOS = 500_000_000;
+        private static final int MIN_WARMUP_SAMPLES = 3;
+
+        // results go here so the JIT can't drop the calls
+        private static volatile long sink;
+
+        public static int main(String[] args) {
+            Size size = Size.SMALL;
+            int iterations = 0;
+            List<String> only = List.of();
+            String save = null, baseline = null;
+            try {
+                for (int i = 1; i < args.length; i += 2) {
+                    if (i + 1 >= args.length) {
+                        throw new IllegalArgumentException(args[i]);
+                    }
+                    switch (args[i]) {
+                        case "--size" -> size = Size.valueOf(
+                            args[i + 1].toUpperCase()
+                        );
+                        case "--iterations" -> iterations = Integer.parseInt(
+                            args[i + 1]
+                        );
+                        case "--only" -> only = List.of(args[i + 1].split(","));
+                        case "--save" -> save = args[i + 1];
+                        case "--baseline" -> baseline = args[i + 1];
+                        default -> throw new IllegalArgumentException(args[i]);
+                    }
+                }
+            } catch (IllegalArgumentException e) {
+                System.err.println(USAGE);
+                return 2;
+            }
+            // the old single purpose entry points
+            if (args[0].equals("--bench-levenshtein")) {
+                only = List.of("levenshtein");
+            } else if (args[0].equals("--bench-fork")) {
+                only = List.of("fork");
+            }
+
+            Map<String, Long> base = null;
+            if (baseline != null) {
+                base = readBaseline(Path.of(baseline), size);
+                if (base == null) return 2;
+            }
+
+            IOUtils.createDirIfAbsent(Path.of(CompetitionDirRoot));
+            // whatever the cases hold on to until they've all run
+            List<AutoCloseable> resources = new ArrayList<>();
+            try {
+                Path work = Files.createTempDirectory(
+                    Path.of(CompetitionDirRoot),
+                    "bench-"
+                );
+                List<Case> cases = cases(size, only, work, resources);
+                if (cases.isEmpty()) {
+                    System.err.println("No benchmark matches " + only);
+                    return 2;
+                }
+                System.out.printf(
+                    "%d benchmarks, size %s, Java %s\n",
+                    cases.size(),
+                    size,
+                    Runtime.version()
+                );
+                System.out.printf(
+                    "%-28s %5s %10s %10s %10s %10s %10s%s\n",
+                    "benchmark",
+                    "n",
+                    "min",
+                    "p50",
+                    "p90",
+                    "p99",
+                    "max",
+                    base == null ? "" : "  p50 vs baseline"
+                );
+                Map<String, Stats> results = new LinkedHashMap<>();
+                for (Case c : cases) {
+                    Stats s = measure(c, iterations > 0 ? iterations : c.samples);
+                    results.put(c.name, s);
+                    System.out.printf(
+                        "%-28s %5d %10s %10s %10s %10s %10s%s\n",
+                        c.name,
+                        s.samples,
+                        formatNanos(s.min),
+                        formatNanos(s.p50),
+                        formatNanos(s.p90),
+                        formatNanos(s.p99),
+                        formatNanos(s.max),
+                        base == null ? "" : "  " + compare(s.p50, base.get(c.name))
+                    );
+                }
+                if (save != null) {
+                    writeBaseline(Path.of(save), size, results);
+                    System.out.println("Saved to " + save);
+                }
+                return 0;
+            } catch (Exception e) {
+                System.err.println("Benchmark failed: " + e);
+                return 1;
+            } finally {
+                for (AutoCloseable r : resources) {
+                    try {
+                        r.close();
+                    } catch (Exception e) {
+                        System.err.println("Unable to close " + r + ": " + e);
+                    }
+                }
+                IOUtils.cleanUpTemp();
+            }
+        }
+
+        private static Stats measure(Case c, int samples) throws Exception {
+            int batch = 1;
+            if (c.setup == null) {
+                // enough calls per sample that the clock isn't what's measured
+                while (batch < (1 << 24) && time(c, batch) < SAMPLE_NANOS) {
+                    batch *= 2;
+                }
+            }
+            long warmupStart = System.nanoTime();
+            for (
+                int i = 0;
+                i < samples &&
+                (i < MIN_WARMUP_SAMPLES ||
+                    System.nanoTime() - warmupStart < WARMUP_NANOS);
+                i++
+            ) {
+                time(c, batch);
+            }
+            long[] perCall = new long[samples];
+            for (int i = 0; i < samples; i++) {
+                perCall[i] = time(c, batch) / batch;
+            }
+            return new Stats(perCall);
+        }
+
+        private static long time(Case c, int batch) throws Exception {
+            if (c.setup != null) c.setup.run();
+            long start = System.nanoTime();
+            for (int i = 0; i < batch; i++) c.op.run();
+            return System.nanoTime() - start;
+        }
+
+        private static boolean wanted(List<String> only, String name) {
+            return only.isEmpty() || only.stream().anyMatch(name::startsWith);
+        }
+
+        private static List<Case> cases(
+            Size size,
+            List<String> only,
+            Path work,
+            List<AutoCloseable> resources
+        ) throws Exception {
+            Random random = new Random(42);
+            List<Case> cases = new ArrayList<>();
+            int scale = size.scale;
+
+            if (wanted(only, "levenshtein")) {
+                // a line with a couple of typos in it, like a near miss
+                int length = 80 * scale;
+                String expected = randomText(random, length);
+                char[] chars = expected.toCharArray();
+                chars[length / 3] = '#';
+                chars[2 * length / 3] = '#';
+                String actual = new String(chars);
+                cases.add(
+                    new Case(
+                        "levenshtein/bounded",
+                        DEFAULT_SAMPLES,
+                        null,
+                        () ->
+                            sink += Problem.levenshtein(
+                                expected,
+                                actual,
+                                MAX_LEVENSHTEIN_DISTANCE
+                            )
+                    )
+                );
+                // quadratic memory, so only while it fits comfortably
+                if (length <= 2_000) {
+                    cases.add(
+                        new Case(
+                            "levenshtein/full-matrix",
+                            DEFAULT_SAMPLES,
+                            null,
+                            () ->
+                                sink += Problem.levenshteinFullMatrix(
+                                    expected,
+                                    actual
+                                )
+                        )
+                    );
+                }
+            }
+
+            if (wanted(only, "output")) {
+                StringBuilder sb = new StringBuilder();
+                for (int i = 1; i <= 10_000 * scale; i++) {
+                    sb
+                        .append("Case #")
+                        .append(i)
+                        .append(": ")
+                        .append(random.nextInt(1_000_000))
+                        .append('\n');
+                }
+                String correct = sb.toString();
+                String wrong = correct.substring(0, correct.length() - 2) + "?\n";
+                Path correctFile = work.resolve("correct.out");
+                Path sameFile = work.resolve("same.out");
+                Path wrongFile = work.resolve("wrong.out");
+                Files.writeString(correctFile, correct);
+                Files.writeString(sameFile, correct);
+                Files.writeString(wrongFile, wrong);
+                Problem problem = new Problem("Bench", null, null, null);
+                cases.add(
+                    new Case(
+                        "output/mapped-same",
+                        DEFAULT_SAMPLES,
+                        null,
+                        () ->
+                            sink += MappedLines.isSameOutput(correctFile, sameFile)
+                                ? 1
+                                : 0
+                    )
+                );
+                cases.add(
+                    new Case(
+                        "output/mapped-last-line",
+                        DEFAULT_SAMPLES,
+                        null,
+                        () ->
+                            sink += MappedLines.isSameOutput(correctFile, wrongFile)
+                                ? 1
+                                : 0
+                    )
+                );
+                cases.add(
+                    new Case(
+                        "output/reader-same",
+                        DEFAULT_SAMPLES,
+                        null,
+                        () ->
+                            sink += problem.isSameOutput(
+                                    new BufferedReader(new StringReader(correct)),
+                                    new BufferedReader(new StringReader(correct))
+                                )
+                                ? 1
+                                : 0
+                    )
+                );
+            }
+
+            if (wanted(only, "unzip")) {
+                Path zip = work.resolve("contest.zip");
+                try (
+                    ZipOutputStream out = new ZipOutputStream(
+                        Files.newOutputStream(zip)
+                    )
+                ) {
+                    for (int i = 0; i < 20 * scale; i++) {
+                        String dir = i % 2 == 0 ? "JudgeData" : "OutFiles";
+                        out.putNextEntry(
+                            new ZipEntry(String.format("Contest/%s/p%04d.txt", dir, i))
+                        );
+                        out.write(
+                            randomText(random, 16 * 1024).getBytes(
+                                StandardCharsets.UTF_8
+                            )
+                        );
+                        out.closeEntry();
+                    }
+                }
+                Path dest = work.resolve("unzipped");
+                cases.add(
+                    new Case(
+                        "unzip",
+                        DEFAULT_SAMPLES,
+                        () -> IOUtils.delete(dest),
+                        () -> IOUtils.extract(zip, dest, name -> true)
+                    )
+                );
+            }
+
+            if (wanted(only, "list-files")) {
+                Path dir = work.resolve("listing");
+                IOUtils.createDirIfAbsent(dir);
+                for (int i = 0; i < 200 * scale; i++) {
+                    Files.createFile(dir.resolve(String.format("p%05d.dat", i)));
+                }
+                for (int i = 0; i < 10 * scale; i++) {
+                    IOUtils.createDirIfAbsent(dir.resolve("dir" + i));
+                }
+                String dirName = dir.toString();
+                cases.add(
+                    new Case(
+                        "list-files",
+                        DEFAULT_SAMPLES,
+                        null,
+                        () -> sink += IOUtils.listFiles(dirName, true).size()
+                    )
+                );
+            }
+
+            if (wanted(only, "compile")) {
+                StringBuilder sb = new StringBuilder("public class Bench {\n");
+                for (int i = 0; i < 20 * scale; i++) {
+                    sb.append(
+                        String.format(
+                            "    static long f%d(long[] a) { long s = %d; for (long x : a) s += x * %d; return s; }\n",
+                            i,
+                            i,
+                            i + 1
+                        )
+                    );
+                }
+                sb.append(
+                    "    public static void main(String[] args) { System.out.println(f0(new long[] { 1, 2 })); }\n}\n"
+                );
+                String source = sb.toString();
+                if (InProcessCompiler.isAvailable()) {
+                    cases.add(
+                        new Case(
+                            "compile/in-process",
+                            DEFAULT_SAMPLES,
+                            null,
+                            () ->
+                                sink += InProcessCompiler.compile(
+                                    "Bench.java",
+                                    source
+                                ).classes.size()
+                        )
+                    );
+                }
+                // what a resubmission costs: the compile cache has it
+                Path sourceFile = work.resolve("Bench.java");
+                Files.writeString(sourceFile, source);
+                Problem problem = new Problem("Bench", null, null, null);
+                Sandbox sandbox = SandboxPool.acquire();
+                resources.add(sandbox);
+                problem.compileStudentCode(sandbox, sourceFile.toString(), true);
+                cases.add(
+                    new Case(
+                        "compile/cached",
+                        DEFAULT_SAMPLES,
+                        null,
+                        () ->
+                            sink += problem.compileStudentCode(
+                                sandbox,
+                                sourceFile.toString(),
+                                true
+                            )
+                    )
+                );
+            }
+
+            if (wanted(only, "fork")) {
+                InProcessCompiler.CompileResult trainer =
+                    InProcessCompiler.compile("Trainer.java", ForkProfile.TRAINER);
+                if (!trainer.success) {
+                    throw new IOException("unable to compile the fork benchmark");
+                }
+                Path dir = work.resolve("fork");
+                InProcessCompiler.writeClasses(trainer.classes, dir);
+                ForkProfile.prepareAsync().join();
+                if (!ForkProfile.isReady()) {
+                    System.out.println("No class archive, fork/fast-start is flags only.");
+                }
+                Map<String, List<String>> commands = new LinkedHashMap<>();
+                // same JVM for both, so only the flags and archive differ
+                commands.put(
+                    "fork/default",
+                    List.of(ForkProfile.javaBinary(), "-Xmx256m", "Trainer")
+                );
+                commands.put("fork/fast-start", ForkProfile.command(256, "Trainer"));
+                commands.forEach((name, command) ->
+                    cases.add(
+                        new Case(
+                            name,
+                            FORK_SAMPLES,
+                            null,
+                            () ->
+                                sink += new ProcessBuilder(command)
+                                    .directory(dir.toFile())
+                                    .redirectOutput(Redirect.DISCARD)
+                                    .start()
+                                    .waitFor()
+                        )
+                    )
+                );
+            }
+            return cases;
+        }
+
+        private static String randomText(Random random, int length) {
+            char[] chars = new char[length];
+            for (int i = 0; i < length; i++) {
+                chars[i] = i % 64 == 63 ? '\n' : (char) ('a' + random.nextInt(26));
+            }
+            return new String(chars);
+        }
+
+        private static String compare(long now, Long before) {
+            if (before == null || before == 0) return "(not in baseline)";
+            return String.format("%+.1f%%", 100.0 * (now - before) / before);
+        }
+
+        // one line per benchmark, tab separated, times in nanoseconds
+        private static void writeBaseline(
+            Path file,
+            Size size,
+            Map<String, Stats> results
+        ) throws IOException {
+            List<String> lines = new ArrayList<>();
+            lines.add("# size " + size);
+            lines.add("# java " + Runtime.version());
+            lines.add("# benchmark\tn\tmin\tp50\tp90\tp99\tmax");
+            results.forEach((name, s) ->
+                lines.add(
+                    String.join(
+                        "\t",
+                        name,
+                        "" + s.samples,
+                        "" + s.min,
+                        "" + s.p50,
+                        "" + s.p90,
+                        "" + s.p99,
+                        "" + s.max
+                    )
+                )
+            );
+            Files.write(file, lines);
+        }
+
+        // benchmark -> p50, or null if the file couldn't be used
+        private static Map<String, Long> readBaseline(Path file, Size size) {
+            Map<String, Long> p50s = new HashMap<>();
+            try {
+                for (String line : Files.readAllLines(file)) {
+                    if (line.startsWith("# size ") && !line.endsWith(" " + size)) {
+                        System.out.printf(
+                            "Warning: the baseline was recorded with %s, not size %s.\n",
+                            line.substring(2),
+                            size
+                        );
+                    }
+                    if (line.startsWith("#") || line.isBlank()) continue;
+                    String[] fields = line.split("\t");
+                    p50s.put(fields[0], Long.parseLong(fields[3]));
+                }
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Unable to read the baseline " + file + ": " + e);
+                return null;
+            }
+            return p50s;
+        }
+    }
+}